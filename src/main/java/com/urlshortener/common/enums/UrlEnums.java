@@ -0,0 +1,23 @@
+package com.urlshortener.common.enums;
+
+public class UrlEnums {
+
+  public enum ImportFormat {
+    NDJSON,
+    CSV
+  }
+
+  /**
+   * How browsers and shared caches may keep a link's redirect. Redirects answered from a cache never reach
+   * the service, so their clicks are not counted.
+   */
+  public enum RedirectPolicy {
+    // 302 that is never cached, every click is counted
+    TEMPORARY,
+    // 302 cacheable until the link expires, at most shortener.redirect.cache-max-age-seconds
+    CACHEABLE,
+    // 301 cacheable for shortener.redirect.permanent-max-age-seconds, only for links that never expire
+    PERMANENT
+  }
+
+}
@@ -0,0 +1,254 @@
+package com.urlshortener.common.helpers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rewrites URLs into one canonical form before dedup and storage, so equivalent URLs share a short code:
+ * lowercase scheme and host, no default port, uppercase percent-escapes with unreserved characters decoded,
+ * tracking parameters from {@code shortener.canonical.strip-params} removed and the remaining query parameters
+ * sorted. Runs in a single pass over the input; URLs without {@code scheme://} are returned unchanged.
+ */
+@Component
+public class UrlCanonicalizer {
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+  private static final int INSERTION_SORT_LIMIT = 32;
+
+  private final boolean enabled;
+  private final String[] exactParams;
+  private final String[] prefixParams;
+
+  @Autowired
+  public UrlCanonicalizer(@Value("${shortener.canonical.enabled:true}") boolean enabled,
+                          @Value("${shortener.canonical.strip-params:utm_*}") String[] stripParams) {
+    this.enabled = enabled;
+    List<String> exact = new ArrayList<>();
+    List<String> prefixes = new ArrayList<>();
+    for (String param : stripParams) {
+      String trimmed = param.trim();
+      if (trimmed.endsWith("*")) {
+        prefixes.add(trimmed.substring(0, trimmed.length() - 1));
+      } else if (!trimmed.isEmpty()) {
+        exact.add(trimmed);
+      }
+    }
+    this.exactParams = exact.toArray(new String[0]);
+    this.prefixParams = prefixes.toArray(new String[0]);
+  }
+
+  public String canonicalize(String url) {
+    if (!enabled || url == null) {
+      return url;
+    }
+    int schemeEnd = url.indexOf("://");
+    if (schemeEnd <= 0 || !isScheme(url, schemeEnd)) {
+      return url;
+    }
+    int length = url.length();
+    StringBuilder out = new StringBuilder(length);
+
+    for (int i = 0; i < schemeEnd; i++) {
+      out.append(toLowerAscii(url.charAt(i)));
+    }
+    out.append("://");
+
+    int authorityStart = schemeEnd + 3;
+    int authorityEnd = indexOfAny(url, authorityStart, length, "/?#");
+    int hostStart = authorityStart;
+    for (int i = authorityEnd - 1; i >= authorityStart; i--) {
+      if (url.charAt(i) == '@') {
+        hostStart = i + 1;
+        break;
+      }
+    }
+    out.append(url, authorityStart, hostStart);
+
+    int portSearchFrom = hostStart;
+    if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+      int bracket = url.indexOf(']', hostStart);
+      portSearchFrom = bracket >= 0 && bracket < authorityEnd ? bracket : authorityEnd;
+    }
+    int portColon = indexOf(url, portSearchFrom, authorityEnd, ':');
+    for (int i = hostStart; i < portColon; i++) {
+      out.append(toLowerAscii(url.charAt(i)));
+    }
+    if (portColon + 1 < authorityEnd && !isDefaultPort(url, schemeEnd, portColon + 1, authorityEnd)) {
+      out.append(url, portColon, authorityEnd);
+    }
+
+    int pathEnd = indexOfAny(url, authorityEnd, length, "?#");
+    appendNormalizedEscapes(out, url, authorityEnd, pathEnd);
+
+    int fragmentStart = pathEnd;
+    if (pathEnd < length && url.charAt(pathEnd) == '?') {
+      fragmentStart = indexOf(url, pathEnd + 1, length, '#');
+      appendQuery(out, url, pathEnd + 1, fragmentStart);
+    }
+    out.append(url, fragmentStart, length);
+    return out.toString();
+  }
+
+  private void appendQuery(StringBuilder out, String url, int from, int to) {
+    // Normalized parameters are written to one scratch buffer and sorted as (start, end) offsets
+    StringBuilder params = new StringBuilder(to - from);
+    int[] bounds = new int[16];
+    int count = 0;
+    int paramStart = from;
+    while (paramStart <= to) {
+      int paramEnd = indexOf(url, paramStart, to, '&');
+      if (paramEnd > paramStart && !isStripped(url, paramStart, paramEnd)) {
+        if (2 * count + 2 > bounds.length) {
+          bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[2 * count] = params.length();
+        appendNormalizedEscapes(params, url, paramStart, paramEnd);
+        bounds[2 * count + 1] = params.length();
+        count++;
+      }
+      paramStart = paramEnd + 1;
+    }
+    if (count == 0) {
+      return;
+    }
+    int[] order = sortedOrder(params, bounds, count);
+    out.append('?');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        out.append('&');
+      }
+      out.append(params, bounds[2 * order[i]], bounds[2 * order[i] + 1]);
+    }
+  }
+
+  private static int[] sortedOrder(CharSequence params, int[] bounds, int count) {
+    if (count <= INSERTION_SORT_LIMIT) {
+      int[] order = new int[count];
+      for (int i = 0; i < count; i++) {
+        int current = i;
+        int j = i - 1;
+        while (j >= 0 && compare(params, bounds, order[j], current) > 0) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = current;
+      }
+      return order;
+    }
+    Integer[] boxed = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      boxed[i] = i;
+    }
+    Arrays.sort(boxed, (a, b) -> compare(params, bounds, a, b));
+    int[] order = new int[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = boxed[i];
+    }
+    return order;
+  }
+
+  private static int compare(CharSequence params, int[] bounds, int a, int b) {
+    int aStart = bounds[2 * a];
+    int aLength = bounds[2 * a + 1] - aStart;
+    int bStart = bounds[2 * b];
+    int bLength = bounds[2 * b + 1] - bStart;
+    int common = Math.min(aLength, bLength);
+    for (int i = 0; i < common; i++) {
+      int diff = params.charAt(aStart + i) - params.charAt(bStart + i);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return aLength - bLength;
+  }
+
+  private boolean isStripped(String url, int from, int to) {
+    int nameEnd = indexOf(url, from, to, '=');
+    int nameLength = nameEnd - from;
+    for (String exact : exactParams) {
+      if (exact.length() == nameLength && url.regionMatches(true, from, exact, 0, nameLength)) {
+        return true;
+      }
+    }
+    for (String prefix : prefixParams) {
+      if (prefix.length() <= nameLength && url.regionMatches(true, from, prefix, 0, prefix.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void appendNormalizedEscapes(StringBuilder out, String url, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = url.charAt(i);
+      if (c == '%' && i + 2 < to) {
+        int high = Character.digit(url.charAt(i + 1), 16);
+        int low = Character.digit(url.charAt(i + 2), 16);
+        if (high >= 0 && low >= 0) {
+          int decoded = (high << 4) | low;
+          if (isUnreserved(decoded)) {
+            out.append((char) decoded);
+          } else {
+            out.append('%').append(HEX[high]).append(HEX[low]);
+          }
+          i += 2;
+          continue;
+        }
+      }
+      out.append(c);
+    }
+  }
+
+  private static boolean isScheme(String url, int schemeEnd) {
+    for (int i = 0; i < schemeEnd; i++) {
+      char c = toLowerAscii(url.charAt(i));
+      boolean letter = c >= 'a' && c <= 'z';
+      if (!letter && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isDefaultPort(String url, int schemeLength, int portStart, int portEnd) {
+    int portLength = portEnd - portStart;
+    if (schemeLength == 4 && url.regionMatches(true, 0, "http", 0, 4)) {
+      return portLength == 2 && url.startsWith("80", portStart);
+    }
+    if (schemeLength == 5 && url.regionMatches(true, 0, "https", 0, 5)) {
+      return portLength == 3 && url.startsWith("443", portStart);
+    }
+    return false;
+  }
+
+  private static boolean isUnreserved(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+        || c == '-' || c == '.' || c == '_' || c == '~';
+  }
+
+  private static char toLowerAscii(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static int indexOf(String s, int from, int to, char c) {
+    for (int i = from; i < to; i++) {
+      if (s.charAt(i) == c) {
+        return i;
+      }
+    }
+    return to;
+  }
+
+  private static int indexOfAny(String s, int from, int to, String chars) {
+    for (int i = from; i < to; i++) {
+      if (chars.indexOf(s.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return to;
+  }
+}
@@ -0,0 +1,24 @@
+package com.urlshortener.common.helpers;
+
+/**
+ * Fixed-width 64-bit hash of a URL, stored next to it so dedup lookups can use a narrow index.
+ * Different URLs may share a hash, so lookups must still compare the full URL.
+ */
+public final class UrlHash {
+  private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+  private static final long FNV_PRIME = 0x100000001B3L;
+
+  private UrlHash() {
+  }
+
+  public static long of(String url) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < url.length(); i++) {
+      hash = (hash ^ url.charAt(i)) * FNV_PRIME;
+    }
+    // FNV-1a spreads poorly in the high bits, finish with a 64-bit avalanche mix
+    hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+    hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return hash ^ (hash >>> 33);
+  }
+}
@@ -3,7 +3,10 @@ package com.urlshortener.config;
 import lombok.extern.slf4j.Slf4j;
 import org.jobrunr.configuration.JobRunr;
 import org.jobrunr.scheduling.JobScheduler;
+import org.jobrunr.server.configuration.BackgroundJobServerThreadType;
+import org.jobrunr.server.configuration.DefaultBackgroundJobServerWorkerPolicy;
 import org.jobrunr.storage.sql.common.SqlStorageProviderFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,18 +15,33 @@ import java.io.IOException;
 import java.net.ServerSocket;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static org.jobrunr.server.BackgroundJobServerConfiguration.usingStandardBackgroundJobServerConfiguration;
+
 @Configuration
 @Slf4j
 public class JobRunrConfig {
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // 0 keeps JobRunr's default for the thread type
+    @Value("${shortener.jobrunr.worker-count:0}")
+    private int workerCount;
+
     @Bean
     public JobScheduler jobScheduler(DataSource dataSource, ApplicationContext applicationContext) {
         int randomPort = isPortAvailable(8000) ? 8000 : generateRandomPort();
-        log.info("Configuring JobRunr...");
+        BackgroundJobServerThreadType threadType = virtualThreads
+                ? BackgroundJobServerThreadType.VirtualThreads : BackgroundJobServerThreadType.PlatformThreads;
+        DefaultBackgroundJobServerWorkerPolicy workerPolicy = workerCount > 0
+                ? new DefaultBackgroundJobServerWorkerPolicy(workerCount, threadType)
+                : new DefaultBackgroundJobServerWorkerPolicy(threadType);
+        log.info("Configuring JobRunr with {}...", threadType);
         JobScheduler scheduler = JobRunr.configure()
                 .useJobActivator(applicationContext::getBean)
                 .useStorageProvider(SqlStorageProviderFactory
                         .using(dataSource))
-                .useBackgroundJobServer()
+                .useBackgroundJobServer(usingStandardBackgroundJobServerConfiguration()
+                        .andBackgroundJobServerWorkerPolicy(workerPolicy))
                 .useDashboard(randomPort)
                 .initialize()
                 .getJobScheduler();
@@ -38,7 +38,8 @@ public class SecurityConfiguration {
             "mixed/**",
             "/static/**",
             "/api-docs/**",
-            "/swagger-ui/**"
+            "/swagger-ui/**",
+            "/actuator/health/**"
         )
         .permitAll()
         .anyRequest()
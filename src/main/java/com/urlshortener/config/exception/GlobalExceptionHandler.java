@@ -38,7 +38,8 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<String> handleNotFound(@NotNull NotFoundException ex) {
-        log.error("Not found: {}", ex.getMessage());
+        // Unknown short codes are routine (scanners, broken links), keep them out of the error log
+        log.debug("Not found: {}", ex.getMessage());
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
@@ -0,0 +1,30 @@
+package com.urlshortener.config.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates the executors of our own background tasks (click flusher, Bloom filter rebuild, node lease heartbeat),
+ * on virtual threads when {@code spring.threads.virtual.enabled} is set and on daemon platform threads otherwise.
+ */
+@Component
+public class BackgroundThreads {
+    private final boolean virtual;
+
+    public BackgroundThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.virtual = virtual;
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public ScheduledExecutorService newSingleThreadScheduledExecutor(String name) {
+        return Executors.newSingleThreadScheduledExecutor(virtual
+                ? Thread.ofVirtual().name(name).factory()
+                : Thread.ofPlatform().daemon().name(name).factory());
+    }
+}
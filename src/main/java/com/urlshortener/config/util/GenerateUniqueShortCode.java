@@ -1,35 +1,100 @@
 package com.urlshortener.config.util;
 
-import com.urlshortener.url.models.ShortenedUrl;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
-import java.util.List;
-import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Random short codes, starting at {@code shortener.id.length} characters. The length grows by one when the
+ * current length passes {@code shortener.adaptive.max-occupancy} or when {@code shortener.adaptive.max-attempts}
+ * candidates in a row collide, so the expected number of retries stays bounded however full the table gets.
+ * Once the length cannot grow past {@link ShortCodeOccupancy#getMaxLength()}, generation fails after
+ * {@code max-attempts} more collisions instead of retrying forever.
+ */
 @Component
 @Slf4j
-public final class GenerateUniqueShortCode {
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shortener.generator", havingValue = "random", matchIfMissing = true)
+public final class GenerateUniqueShortCode implements ShortCodeGenerator {
+    private final ShortCodeOccupancy shortCodeOccupancy;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger currentLength = new AtomicInteger();
+
     @Value("${shortener.alphabet}")
     private String alphabets;
 
     @Value("${shortener.id.length}")
     private int idLength;
 
-    public String generateUniqueShortCode(List<ShortenedUrl> shortenedUrls) {
-        Random random = new Random();
-        StringBuilder sb = new StringBuilder(idLength);
-        Set<String> shortCodes = shortenedUrls.stream()
-                .map(ShortenedUrl::getShortCode)
-                .collect(Collectors.toSet());
+    @Value("${shortener.adaptive.max-occupancy:0.5}")
+    private double maxOccupancy;
+
+    @Value("${shortener.adaptive.max-attempts:8}")
+    private int maxAttempts;
+
+    private DistributionSummary retries;
+
+    @PostConstruct
+    public void init() {
+        int length = idLength;
+        while (length < shortCodeOccupancy.getMaxLength() && shortCodeOccupancy.occupancy(length) >= maxOccupancy) {
+            length++;
+        }
+        currentLength.set(length);
+        log.info("Generating random short codes of length {}", length);
+
+        retries = DistributionSummary.builder("shortener.generator.retries")
+                .description("Collisions before a free short code was found")
+                .register(meterRegistry);
+        Gauge.builder("shortener.generator.length", currentLength, AtomicInteger::get)
+                .description("Length of newly generated short codes")
+                .register(meterRegistry);
+    }
 
-        do {
-            for (int i = 0; i < idLength; i++) {
-                sb.append(alphabets.charAt(random.nextInt(alphabets.length())));
+    @Override
+    public String generateShortCode() {
+        int length = currentLength.get();
+        int collisions = 0;
+        String shortCode = randomShortCode(length);
+        while (!shortCodeOccupancy.tryClaim(shortCode)) {
+            collisions++;
+            if (collisions % maxAttempts == 0) {
+                if (length >= shortCodeOccupancy.getMaxLength()) {
+                    throw new IllegalStateException("Short code keyspace is saturated at the maximum length " + length
+                            + ", " + collisions + " candidates collided");
+                }
+                length = grow(length);
             }
-        } while (shortCodes.contains(sb.toString()));
+            shortCode = randomShortCode(length);
+        }
+        retries.record(collisions);
+        if (shortCodeOccupancy.occupancy(length) >= maxOccupancy) {
+            grow(length);
+        }
+        return shortCode;
+    }
+
+    private int grow(int from) {
+        if (from < shortCodeOccupancy.getMaxLength() && currentLength.compareAndSet(from, from + 1)) {
+            log.warn("Short code keyspace of length {} is saturated, growing to length {}", from, from + 1);
+        }
+        return currentLength.get();
+    }
+
+    private String randomShortCode(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabets.charAt(random.nextInt(alphabets.length())));
+        }
         return sb.toString();
     }
 }
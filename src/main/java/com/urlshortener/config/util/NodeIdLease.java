@@ -0,0 +1,145 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.models.ShortenerNode;
+import com.urlshortener.url.repository.ShortenerNodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Node ID of this instance for the snowflake generator. Uses {@code shortener.snowflake.node-id} when it is set,
+ * otherwise leases a free ID from the {@code nodes} table at startup and keeps the lease alive with a heartbeat.
+ * A leased ID is only handed out while the last successful heartbeat is younger than {@code lease-seconds}, after
+ * which another node may claim it. When the heartbeat finds the lease taken over, it leases another free ID.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shortener.generator", havingValue = "snowflake")
+public class NodeIdLease {
+    private final ShortenerNodeRepository shortenerNodeRepository;
+    private final BackgroundThreads backgroundThreads;
+    private final String owner = hostName() + "-" + UUID.randomUUID();
+
+    @Value("${shortener.snowflake.node-id:-1}")
+    private int configuredNodeId;
+
+    @Value("${shortener.snowflake.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private ScheduledExecutorService heartbeat;
+    private volatile int nodeId = -1;
+    // System.nanoTime() at which the last successful lease or renewal started
+    private volatile long renewedAt;
+
+    @PostConstruct
+    public void acquire() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId >= SnowflakeShortCodeGenerator.MAX_NODES) {
+                throw new IllegalStateException("shortener.snowflake.node-id must be below " + SnowflakeShortCodeGenerator.MAX_NODES);
+            }
+            nodeId = configuredNodeId;
+            log.info("Using configured snowflake node ID {}", nodeId);
+            return;
+        }
+        renewedAt = System.nanoTime();
+        nodeId = lease();
+        log.info("Leased snowflake node ID {} as {}", nodeId, owner);
+        heartbeat = backgroundThreads.newSingleThreadScheduledExecutor("node-id-heartbeat");
+        long period = Math.max(1, leaseSeconds / 3);
+        heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the node ID to generate with.
+     *
+     * @throws IllegalStateException if the lease was lost or has not been renewed within {@code lease-seconds}
+     */
+    public int getNodeId() {
+        int current = nodeId;
+        if (configuredNodeId < 0 && (current < 0 || System.nanoTime() - renewedAt >= TimeUnit.SECONDS.toNanos(leaseSeconds))) {
+            throw new IllegalStateException("No current lease on a snowflake node ID, refusing to generate short codes");
+        }
+        return current;
+    }
+
+    private int lease() {
+        LocalDateTime now = LocalDateTime.now();
+        Set<Integer> taken = shortenerNodeRepository.findAll().stream()
+                .map(ShortenerNode::getNodeId)
+                .collect(Collectors.toSet());
+        for (int candidate = 0; candidate < SnowflakeShortCodeGenerator.MAX_NODES; candidate++) {
+            if (taken.contains(candidate)) {
+                continue;
+            }
+            try {
+                shortenerNodeRepository.insertLease(candidate, owner, now);
+                return candidate;
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Snowflake node ID {} was leased concurrently", candidate);
+            }
+        }
+        LocalDateTime expiredBefore = now.minusSeconds(leaseSeconds);
+        for (Integer candidate : taken) {
+            if (shortenerNodeRepository.claimExpiredLease(candidate, owner, now, expiredBefore) == 1) {
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("No free snowflake node ID, all " + SnowflakeShortCodeGenerator.MAX_NODES + " are leased");
+    }
+
+    void renew() {
+        long started = System.nanoTime();
+        try {
+            if (nodeId >= 0 && shortenerNodeRepository.renewLease(nodeId, owner, LocalDateTime.now()) == 1) {
+                renewedAt = started;
+                return;
+            }
+            if (nodeId >= 0) {
+                log.error("Lease on snowflake node ID {} was lost, leasing another one", nodeId);
+                nodeId = -1;
+            }
+            int leased = lease();
+            renewedAt = started;
+            nodeId = leased;
+            log.info("Leased snowflake node ID {} as {}", nodeId, owner);
+        } catch (RuntimeException e) {
+            log.warn("Failed to renew lease on snowflake node ID {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        if (nodeId < 0) {
+            return;
+        }
+        shortenerNodeRepository.releaseLease(nodeId, owner);
+        log.info("Released snowflake node ID {}", nodeId);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hi/lo short code generator. Each node leases blocks of {@code shortener.sequence.block-size} ordinals
+ * from a database sequence and scrambles them into codes. Each leased block is checked against the stored codes
+ * with one lookup, and codes that already exist (from another generator or a custom ID) are skipped, so the
+ * generator can be switched on for a database that already holds links. Custom IDs created after a block was
+ * leased share the keyspace and can still collide with a generated code.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shortener.generator", havingValue = "sequence")
+public class SequenceShortCodeGenerator implements ShortCodeGenerator {
+    static final String SEQUENCE_NAME = "short_code_seq";
+    // Largest IN list sent when checking a block against the stored codes
+    private static final int LOOKUP_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ShortCodeCodec shortCodeCodec;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Codes of the leased block that are not stored yet, in order
+    private final ArrayDeque<String> block = new ArrayDeque<>();
+
+    @Value("${shortener.sequence.block-size:1000}")
+    private int blockSize;
+
+    private String nextBlockSql;
+
+    @PostConstruct
+    public void createSequence() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME + " START WITH 0 MINVALUE 0 INCREMENT BY 1");
+        nextBlockSql = dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE_NAME);
+        log.info("Using sequence short code generator with blocks of {} codes", blockSize);
+    }
+
+    @Override
+    public String generateShortCode() {
+        lock.lock();
+        try {
+            while (block.isEmpty()) {
+                leaseBlock();
+            }
+            return block.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leaseBlock() {
+        Long hi = jdbcTemplate.queryForObject(nextBlockSql, Long.class);
+        if (hi == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+        }
+        long start = Math.multiplyExact(hi, (long) blockSize);
+        if (start >= shortCodeCodec.getKeyspace()) {
+            throw new IllegalStateException("Short code keyspace of " + shortCodeCodec.getKeyspace() + " codes is exhausted");
+        }
+        long end = Math.min(start + blockSize, shortCodeCodec.getKeyspace());
+        List<String> codes = new ArrayList<>((int) (end - start));
+        for (long ordinal = start; ordinal < end; ordinal++) {
+            codes.add(shortCodeCodec.encode(shortCodeCodec.scramble(ordinal)));
+        }
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < codes.size(); from += LOOKUP_CHUNK) {
+            existing.addAll(shortenedUrlRepository.findExistingShortCodes(codes.subList(from, Math.min(from + LOOKUP_CHUNK, codes.size()))));
+        }
+        for (String code : codes) {
+            if (!existing.contains(code)) {
+                block.add(code);
+            }
+        }
+        log.debug("Leased short code block [{}, {}), skipped {} stored codes", start, end, existing.size());
+    }
+}
@@ -0,0 +1,124 @@
+package com.urlshortener.config.util;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe compressed bitmap of the occupied ordinals of all codes with one length.
+ * Codes of another length or with characters outside the alphabet are ignored.
+ */
+public class ShortCodeBitmap {
+    private final ShortCodeCodec shortCodeCodec;
+    private final int length;
+    private final long keyspace;
+    private final Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ShortCodeBitmap(ShortCodeCodec shortCodeCodec, int length) {
+        this.shortCodeCodec = shortCodeCodec;
+        this.length = length;
+        this.keyspace = shortCodeCodec.keyspace(length);
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public long getKeyspace() {
+        return keyspace;
+    }
+
+    public boolean contains(String shortCode) {
+        long ordinal = ordinal(shortCode);
+        if (ordinal < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return bitmap.contains(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String shortCode) {
+        long ordinal = ordinal(shortCode);
+        if (ordinal < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            bitmap.addLong(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks the code as occupied and returns true, or returns false if it already was.
+     */
+    public boolean tryClaim(String shortCode) {
+        long ordinal = ordinal(shortCode);
+        if (ordinal < 0) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            if (bitmap.contains(ordinal)) {
+                return false;
+            }
+            bitmap.addLong(ordinal);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String shortCode) {
+        long ordinal = ordinal(shortCode);
+        if (ordinal < 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            bitmap.removeLong(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long cardinality() {
+        lock.readLock().lock();
+        try {
+            return bitmap.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return bitmap.getLongSizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Converts dense containers to run-length encoding where that is smaller.
+     */
+    public void optimize() {
+        lock.writeLock().lock();
+        try {
+            bitmap.runOptimize();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private long ordinal(String shortCode) {
+        return shortCode != null && shortCode.length() == length ? shortCodeCodec.decode(shortCode) : -1;
+    }
+}
@@ -0,0 +1,208 @@
+package com.urlshortener.config.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Reversible mapping between numeric ordinals and short codes written in {@code shortener.alphabet}.
+ * Fixed-length codes can be scrambled with a keyed Feistel permutation over the keyspace, so
+ * consecutive ordinals do not produce guessable, consecutive codes.
+ */
+@Component
+public class ShortCodeCodec {
+    private static final int ROUNDS = 4;
+
+    private final char[] alphabet;
+    private final int[] digits = new int[128];
+    private final int length;
+    private final long keyspace;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] roundKeys = new long[ROUNDS];
+
+    @Autowired
+    public ShortCodeCodec(@Value("${shortener.alphabet}") String alphabet,
+                          @Value("${shortener.id.length}") int length,
+                          @Value("${shortener.scramble-key:0}") long scrambleKey) {
+        if (alphabet.length() < 2) {
+            throw new IllegalArgumentException("Short code alphabet needs at least two characters");
+        }
+        this.alphabet = alphabet.toCharArray();
+        this.length = length;
+        Arrays.fill(digits, -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            char c = this.alphabet[i];
+            if (c >= 128 || digits[c] != -1) {
+                throw new IllegalArgumentException("Short code alphabet must contain distinct ASCII characters");
+            }
+            digits[c] = i;
+        }
+        this.keyspace = keyspace(length);
+        int bits = 64 - Long.numberOfLeadingZeros(keyspace - 1);
+        this.halfBits = (bits + 1) / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        long seed = scrambleKey;
+        for (int i = 0; i < ROUNDS; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            roundKeys[i] = seed;
+        }
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getRadix() {
+        return alphabet.length;
+    }
+
+    /**
+     * Number of distinct codes of the configured length.
+     */
+    public long getKeyspace() {
+        return keyspace;
+    }
+
+    /**
+     * Number of distinct codes of the given length.
+     */
+    public long keyspace(int codeLength) {
+        long size = 1;
+        for (int i = 0; i < codeLength; i++) {
+            size = Math.multiplyExact(size, (long) alphabet.length);
+        }
+        return size;
+    }
+
+    /**
+     * Longest code length whose keyspace still fits in a {@code long}.
+     */
+    public int maxLength() {
+        int codeLength = 1;
+        long size = alphabet.length;
+        while (size <= Long.MAX_VALUE / alphabet.length) {
+            size *= alphabet.length;
+            codeLength++;
+        }
+        return codeLength;
+    }
+
+    /**
+     * Encodes an ordinal in {@code [0, keyspace)} as a code of the configured length.
+     */
+    public String encode(long ordinal) {
+        return encode(ordinal, length);
+    }
+
+    /**
+     * Encodes a non-negative value as a code of exactly {@code codeLength} characters.
+     */
+    public String encode(long value, int codeLength) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Cannot encode negative value " + value);
+        }
+        char[] code = new char[codeLength];
+        long remaining = value;
+        for (int i = codeLength - 1; i >= 0; i--) {
+            code[i] = alphabet[(int) (remaining % alphabet.length)];
+            remaining /= alphabet.length;
+        }
+        if (remaining != 0) {
+            throw new IllegalArgumentException("Value " + value + " does not fit in " + codeLength + " characters");
+        }
+        return new String(code);
+    }
+
+    /**
+     * Encodes a non-negative value using as few characters as needed.
+     */
+    public String encodeMinimal(long value) {
+        int codeLength = 1;
+        for (long rest = value / alphabet.length; rest > 0; rest /= alphabet.length) {
+            codeLength++;
+        }
+        return encode(value, codeLength);
+    }
+
+    /**
+     * Decodes a code back to its ordinal, or returns -1 if it contains characters outside the alphabet.
+     */
+    public long decode(CharSequence code) {
+        long value = 0;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            int digit = c < 128 ? digits[c] : -1;
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * alphabet.length + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Bijectively permutes an ordinal inside {@code [0, keyspace)}.
+     */
+    public long scramble(long ordinal) {
+        checkOrdinal(ordinal);
+        long value = ordinal;
+        do {
+            value = encrypt(value);
+        } while (value >= keyspace);
+        return value;
+    }
+
+    /**
+     * Inverse of {@link #scramble(long)}.
+     */
+    public long unscramble(long scrambled) {
+        checkOrdinal(scrambled);
+        long value = scrambled;
+        do {
+            value = decrypt(value);
+        } while (value >= keyspace);
+        return value;
+    }
+
+    private void checkOrdinal(long ordinal) {
+        if (ordinal < 0 || ordinal >= keyspace) {
+            throw new IllegalArgumentException("Ordinal " + ordinal + " is outside the keyspace of " + keyspace);
+        }
+    }
+
+    // Balanced Feistel network on 2 * halfBits bits; cycle walking keeps the result inside the keyspace.
+    private long encrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = 0; i < ROUNDS; i++) {
+            long next = left ^ round(right, i);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long decrypt(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = ROUNDS - 1; i >= 0; i--) {
+            long previous = right ^ round(left, i);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long round(long half, int i) {
+        return mix(half ^ roundKeys[i]) & halfMask;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
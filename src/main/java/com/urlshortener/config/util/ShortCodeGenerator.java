@@ -0,0 +1,13 @@
+package com.urlshortener.config.util;
+
+/**
+ * Strategy for allocating new short codes.
+ * The active implementation is selected with the {@code shortener.generator} property.
+ */
+public interface ShortCodeGenerator {
+
+    /**
+     * Returns a short code that is not used by any stored short URL.
+     */
+    String generateShortCode();
+}
@@ -0,0 +1,147 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.repository.ShortCodePoolRepository;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory occupancy of the random short code keyspace, so the random generator can check for collisions
+ * without a database query. One bitmap is kept per code length, from {@code shortener.id.length} up to the
+ * longest length the generator may grow to. Built at startup from the short code column and the short code
+ * pool, and kept current from entity events. Codes created by other nodes are not seen; multi-node
+ * deployments should use the sequence or snowflake generator.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shortener.generator", havingValue = "random", matchIfMissing = true)
+public class ShortCodeOccupancy {
+    private final ShortCodeCodec shortCodeCodec;
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final ShortCodePoolRepository shortCodePoolRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<Integer, ShortCodeBitmap> bitmaps = new ConcurrentHashMap<>();
+    private int maxLength;
+
+    public record Stats(int length, long occupied, long keyspace, double occupancy, long sizeInBytes) {
+    }
+
+    @PostConstruct
+    public void load() {
+        maxLength = Math.min(ShortenedUrl.MAX_SHORT_CODE_LENGTH, shortCodeCodec.maxLength());
+        bitmap(shortCodeCodec.getLength());
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<String> shortCodes = shortenedUrlRepository.streamAllShortCodes()) {
+                shortCodes.forEach(this::add);
+            }
+            try (Stream<String> pooledCodes = shortCodePoolRepository.streamAllShortCodes()) {
+                pooledCodes.forEach(this::add);
+            }
+        });
+        bitmaps.values().forEach(bitmap -> {
+            bitmap.optimize();
+            log.info("Loaded {} occupied short codes of length {} ({} bytes)",
+                    bitmap.cardinality(), bitmap.getLength(), bitmap.sizeInBytes());
+        });
+    }
+
+    /**
+     * Longest code length that is tracked, and so the longest the random generator may use.
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public boolean isOccupied(String shortCode) {
+        ShortCodeBitmap bitmap = bitmap(shortCode.length());
+        return bitmap != null && bitmap.contains(shortCode);
+    }
+
+    /**
+     * Atomically reserves a free code for this node; returns false if it is already occupied.
+     */
+    public boolean tryClaim(String shortCode) {
+        ShortCodeBitmap bitmap = bitmap(shortCode.length());
+        return bitmap != null && bitmap.tryClaim(shortCode);
+    }
+
+    public double occupancy(int length) {
+        ShortCodeBitmap bitmap = bitmap(length);
+        return bitmap == null ? 1.0 : (double) bitmap.cardinality() / bitmap.getKeyspace();
+    }
+
+    public Stats getStats(int length) {
+        ShortCodeBitmap bitmap = bitmap(length);
+        if (bitmap == null) {
+            throw new IllegalArgumentException("Short codes of length " + length + " are not tracked");
+        }
+        long occupied = bitmap.cardinality();
+        return new Stats(length, occupied, bitmap.getKeyspace(), (double) occupied / bitmap.getKeyspace(), bitmap.sizeInBytes());
+    }
+
+    @EventListener
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        add(event.shortCode());
+    }
+
+    @EventListener
+    public void onDeleted(ShortenedUrlDeletedEvent event) {
+        ShortCodeBitmap bitmap = bitmap(event.shortCode().length());
+        if (bitmap != null) {
+            bitmap.remove(event.shortCode());
+        }
+    }
+
+    private void add(String shortCode) {
+        ShortCodeBitmap bitmap = bitmap(shortCode.length());
+        if (bitmap != null) {
+            bitmap.add(shortCode);
+        }
+    }
+
+    private ShortCodeBitmap bitmap(int length) {
+        if (length < shortCodeCodec.getLength() || length > maxLength) {
+            return null;
+        }
+        return bitmaps.computeIfAbsent(length, this::createBitmap);
+    }
+
+    private ShortCodeBitmap createBitmap(int length) {
+        ShortCodeBitmap bitmap = new ShortCodeBitmap(shortCodeCodec, length);
+        String tag = String.valueOf(length);
+        Gauge.builder("shortener.occupancy.codes", bitmap, ShortCodeBitmap::cardinality)
+                .description("Occupied short codes of one length")
+                .tag("length", tag)
+                .register(meterRegistry);
+        Gauge.builder("shortener.occupancy.ratio", bitmap, b -> (double) b.cardinality() / b.getKeyspace())
+                .description("Fraction of the keyspace of one code length in use")
+                .tag("length", tag)
+                .register(meterRegistry);
+        Gauge.builder("shortener.occupancy.bytes", bitmap, ShortCodeBitmap::sizeInBytes)
+                .description("Memory used by the occupancy bitmap of one code length")
+                .tag("length", tag)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return bitmap;
+    }
+}
@@ -0,0 +1,122 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.models.ShortenedUrl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style generator: {@code seconds since 2024-01-01 | node ID | per-node counter} packed into 57 bits
+ * and written in {@code shortener.alphabet}. Codes are unique across nodes as long as node IDs are, so a
+ * create needs no database round-trip. The node ID is read from {@link NodeIdLease} for every ID, so generation
+ * fails instead of risking collisions while no lease is held, and carries on with a newly leased ID.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "shortener.generator", havingValue = "snowflake")
+public class SnowflakeShortCodeGenerator implements ShortCodeGenerator {
+    static final long EPOCH_SECOND = 1704067200L;
+    static final int TIME_BITS = 31;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 16;
+    public static final int MAX_NODES = 1 << NODE_BITS;
+    private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    private static final long MAX_ID = (1L << (TIME_BITS + NODE_BITS + SEQUENCE_BITS)) - 1;
+
+    private final ShortCodeCodec shortCodeCodec;
+    private final IntSupplier nodeId;
+    private final LongSupplier epochSecondClock;
+    private final int codeLength;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long lastSecond = -1;
+    private long sequence;
+
+    @Autowired
+    public SnowflakeShortCodeGenerator(ShortCodeCodec shortCodeCodec, NodeIdLease nodeIdLease) {
+        this(shortCodeCodec, nodeIdLease::getNodeId, () -> System.currentTimeMillis() / 1000);
+    }
+
+    public SnowflakeShortCodeGenerator(ShortCodeCodec shortCodeCodec, int nodeId, LongSupplier epochSecondClock) {
+        this(shortCodeCodec, checkNodeId(nodeId), epochSecondClock);
+    }
+
+    SnowflakeShortCodeGenerator(ShortCodeCodec shortCodeCodec, IntSupplier nodeId, LongSupplier epochSecondClock) {
+        this.shortCodeCodec = shortCodeCodec;
+        this.nodeId = nodeId;
+        this.epochSecondClock = epochSecondClock;
+        int length = 1;
+        while (shortCodeCodec.keyspace(length) <= MAX_ID) {
+            length++;
+        }
+        if (length > ShortenedUrl.MAX_SHORT_CODE_LENGTH) {
+            throw new IllegalStateException("Snowflake IDs need " + length + " character codes in shortener.alphabet, more than the "
+                    + ShortenedUrl.MAX_SHORT_CODE_LENGTH + " a short code can hold; use a larger alphabet");
+        }
+        this.codeLength = length;
+        log.info("Snowflake generator produces {} character codes", codeLength);
+    }
+
+    @Override
+    public String generateShortCode() {
+        return shortCodeCodec.encode(nextId(), codeLength);
+    }
+
+    public int getCodeLength() {
+        return codeLength;
+    }
+
+    /**
+     * Returns the next raw ID. When the counter overflows within one second the call waits for the next second;
+     * if the clock moves backwards the last second keeps being used, so IDs never repeat on this node.
+     */
+    public long nextId() {
+        lock.lock();
+        try {
+            long nodeBits = (long) nodeId.getAsInt() << SEQUENCE_BITS;
+            long second = Math.max(currentSecond(), lastSecond);
+            if (second == lastSecond) {
+                if (sequence == MAX_SEQUENCE) {
+                    second = awaitSecondAfter(lastSecond);
+                    sequence = 0;
+                } else {
+                    sequence++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastSecond = second;
+            if (second >= (1L << TIME_BITS)) {
+                throw new IllegalStateException("Snowflake time component overflowed");
+            }
+            return (second << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static IntSupplier checkNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId >= MAX_NODES) {
+            throw new IllegalArgumentException("Node ID must be in [0, " + MAX_NODES + ")");
+        }
+        return () -> nodeId;
+    }
+
+    private long currentSecond() {
+        return epochSecondClock.getAsLong() - EPOCH_SECOND;
+    }
+
+    private long awaitSecondAfter(long second) {
+        long now = currentSecond();
+        while (now <= second) {
+            Thread.onSpinWait();
+            now = currentSecond();
+        }
+        return now;
+    }
+}
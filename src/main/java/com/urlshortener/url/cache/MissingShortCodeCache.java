@@ -0,0 +1,173 @@
+package com.urlshortener.url.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Negative lookups for redirects, so unknown codes are answered without a database query. A Bloom filter of
+ * all stored codes, rebuilt every {@code shortener.cache.negative.rebuild-seconds}, rules out codes that were
+ * never created. Codes that pass the filter but turn out unknown or expired are remembered for
+ * {@code shortener.cache.negative.miss-ttl-seconds}. Created codes are added to the filter and cleared from
+ * the miss cache once their transaction commits. On PostgreSQL, codes created on other nodes arrive the same way
+ * through {@link RedirectInvalidationBus}; until that notification is received, about one
+ * {@code shortener.invalidation.publish-interval-ms} after the commit, a code just created on another node can still
+ * be answered with a 404. On other databases they are only seen after the next rebuild.
+ */
+@Component
+@Slf4j
+public class MissingShortCodeCache {
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final BackgroundThreads backgroundThreads;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long rebuildSeconds;
+    private final Cache<String, Boolean> misses;
+    private final Counter filterRejections;
+    private final Counter cacheRejections;
+
+    private volatile ShortCodeBloomFilter filter;
+    private volatile ShortCodeBloomFilter building;
+    private ScheduledExecutorService rebuilder;
+
+    public MissingShortCodeCache(ShortenedUrlRepository shortenedUrlRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 BackgroundThreads backgroundThreads,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shortener.cache.negative.enabled:true}") boolean enabled,
+                                 @Value("${shortener.cache.negative.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${shortener.cache.negative.rebuild-seconds:300}") long rebuildSeconds,
+                                 @Value("${shortener.cache.negative.miss-ttl-seconds:30}") long missTtlSeconds,
+                                 @Value("${shortener.cache.negative.miss-maximum-size:100000}") long missMaximumSize) {
+        this.shortenedUrlRepository = shortenedUrlRepository;
+        this.transactionManager = transactionManager;
+        this.backgroundThreads = backgroundThreads;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildSeconds = rebuildSeconds;
+        this.misses = Caffeine.newBuilder()
+                .maximumSize(missMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(missTtlSeconds))
+                .build();
+        this.filterRejections = Counter.builder("shortener.negative-cache.rejections").tag("source", "bloom").register(meterRegistry);
+        this.cacheRejections = Counter.builder("shortener.negative-cache.rejections").tag("source", "misses").register(meterRegistry);
+        Gauge.builder("shortener.negative-cache.bloom.bytes", this, cache -> cache.filter != null ? cache.filter.sizeInBytes() : 0)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuilder = backgroundThreads.newSingleThreadScheduledExecutor("short-code-bloom-rebuild");
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * Whether the short code is known not to exist or to be expired. Returns {@code false} until the first
+     * filter build completes.
+     */
+    public boolean isKnownMissing(String shortCode) {
+        if (!enabled) {
+            return false;
+        }
+        ShortCodeBloomFilter current = filter;
+        if (current != null && !current.mightContain(shortCode)) {
+            filterRejections.increment();
+            return true;
+        }
+        if (misses.getIfPresent(shortCode) != null) {
+            cacheRejections.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void recordMissing(String shortCode) {
+        if (enabled) {
+            misses.put(shortCode, Boolean.TRUE);
+        }
+    }
+
+    // After commit, so a rebuild that starts in between either reads the row or receives the event
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        markCreated(event.shortCode());
+    }
+
+    /**
+     * Adds a committed code to the filter and clears it from the miss cache, also for codes created on other nodes.
+     */
+    public void markCreated(String shortCode) {
+        ShortCodeBloomFilter next = building;
+        if (next != null) {
+            next.add(shortCode);
+        }
+        ShortCodeBloomFilter current = filter;
+        if (current != null) {
+            current.add(shortCode);
+        }
+        misses.invalidate(shortCode);
+    }
+
+    /**
+     * Drops all remembered misses and rebuilds the filter in the background, after creates may have been missed.
+     */
+    public void reset() {
+        misses.invalidateAll();
+        if (rebuilder != null) {
+            rebuilder.execute(this::rebuild);
+        }
+    }
+
+    void rebuild() {
+        try {
+            long started = System.nanoTime();
+            long expected = shortenedUrlRepository.count();
+            // Headroom for codes created before the next rebuild
+            ShortCodeBloomFilter next = new ShortCodeBloomFilter(Math.max(1024, expected + expected / 4), falsePositiveRate);
+            building = next;
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<String> shortCodes = shortenedUrlRepository.streamAllShortCodes()) {
+                    shortCodes.forEach(next::add);
+                }
+            });
+            filter = next;
+            building = null;
+            log.info("Rebuilt short code Bloom filter for {} codes ({} bytes) in {} ms", expected, next.sizeInBytes(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (RuntimeException e) {
+            building = null;
+            log.warn("Failed to rebuild short code Bloom filter: {}", e.getMessage());
+        }
+    }
+}
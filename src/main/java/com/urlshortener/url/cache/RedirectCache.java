@@ -0,0 +1,234 @@
+package com.urlshortener.url.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.repository.RedirectTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of redirect targets keyed by short code, in front of the short URL table.
+ * Eviction uses Caffeine's W-TinyLFU admission, so a burst of one-off codes does not push out popular ones.
+ * Entries expire exactly at the link's {@code expiresAt}, or after {@code shortener.cache.redirect.ttl-seconds}
+ * for links without expiry, and are invalidated by create and delete events once their transaction commits, so
+ * a load that read the row before the commit cannot be cached after the invalidation.
+ * Short codes are unique, so the owner is kept in the entry and checked on read instead of being part of the key.
+ * <p>
+ * Concurrent misses for one code share a single load, also when the cache is disabled and for unknown codes.
+ * Before an entry's TTL runs out, a hit may reload it early with a probability that grows as the TTL nears and
+ * with the time the last load took ({@code shortener.cache.redirect.early-refresh-beta}, 0 disables), so a hot
+ * entry is normally replaced before it expires instead of every request missing at once.
+ */
+@Component
+@Slf4j
+public class RedirectCache {
+    private static final int INVALIDATION_STRIPES = 1024;
+    // Preloaded entries were not timed individually; assume a typical single-row query for early refresh
+    private static final long PRELOAD_LOAD_NANOS = 1_000_000;
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final double earlyRefreshBeta;
+    private final Cache<String, Entry> cache;
+    private final SingleFlight<String, RedirectTarget> loads = new SingleFlight<>();
+    // Bumped by invalidations, so a load that raced with one does not cache what it read before it
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final AtomicLong fullInvalidations = new AtomicLong();
+    private final Counter coalesced;
+    private final Counter earlyRefreshes;
+
+    private record Entry(RedirectTarget target, long expiresAtNanos, long loadNanos) {
+    }
+
+    /**
+     * Invalidation counters at one point in time, taken before reading entries to {@link #preload} them.
+     */
+    public record InvalidationStamp(long[] stripes, long full) {
+    }
+
+    public RedirectCache(@Value("${shortener.cache.redirect.enabled:true}") boolean enabled,
+                         @Value("${shortener.cache.redirect.maximum-size:100000}") long maximumSize,
+                         @Value("${shortener.cache.redirect.ttl-seconds:3600}") long ttlSeconds,
+                         @Value("${shortener.cache.redirect.early-refresh-beta:1.0}") double earlyRefreshBeta,
+                         MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+        this.earlyRefreshBeta = earlyRefreshBeta;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String shortCode, Entry entry, long currentTime) {
+                        return Math.max(0, entry.expiresAtNanos() - currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String shortCode, Entry entry, long currentTime, long currentDuration) {
+                        return expireAfterCreate(shortCode, entry, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String shortCode, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "redirects");
+        this.coalesced = Counter.builder("shortener.cache.redirect.coalesced")
+                .description("Redirect lookups that waited for another request's load of the same code")
+                .register(meterRegistry);
+        this.earlyRefreshes = Counter.builder("shortener.cache.redirect.early-refreshes")
+                .description("Cached redirects reloaded before their TTL ran out")
+                .register(meterRegistry);
+        log.info("Redirect cache {} with at most {} entries", enabled ? "enabled" : "disabled", maximumSize);
+    }
+
+    /**
+     * Cached entry for the short code, loading it on a miss. The loader returns {@code null} for unknown or
+     * expired codes, which are not cached.
+     */
+    public RedirectTarget get(String shortCode, Function<String, RedirectTarget> loader) {
+        if (!enabled) {
+            return load(shortCode, loader);
+        }
+        Entry entry = cache.getIfPresent(shortCode);
+        if (entry == null) {
+            return load(shortCode, loader);
+        }
+        // Guards the short window between expiresAt and Caffeine's next maintenance run
+        if (entry.target().isExpired()) {
+            return null;
+        }
+        if (shouldRefreshEarly(entry) && !loads.isLoading(shortCode)) {
+            earlyRefreshes.increment();
+            return load(shortCode, loader);
+        }
+        return entry.target();
+    }
+
+    /**
+     * Current invalidation counters. Take them before reading the entries to preload, so an invalidation that
+     * arrives between the read and {@link #preload} is noticed.
+     */
+    public InvalidationStamp stamp() {
+        long full = fullInvalidations.get();
+        long[] stripes = new long[INVALIDATION_STRIPES];
+        for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+            stripes[i] = invalidations.get(i);
+        }
+        return new InvalidationStamp(stripes, full);
+    }
+
+    /**
+     * Adds an entry loaded ahead of time, keeping any entry already loaded by a request. The entry is skipped
+     * when its code was invalidated since the stamp was taken, as for loads.
+     *
+     * @return whether the entry was added
+     */
+    public boolean preload(String shortCode, RedirectTarget entry, InvalidationStamp stamp) {
+        if (!enabled || entry.isExpired() || invalidatedSince(shortCode, stamp)) {
+            return false;
+        }
+        Entry added = entry(entry, PRELOAD_LOAD_NANOS);
+        if (cache.asMap().putIfAbsent(shortCode, added) != null) {
+            return false;
+        }
+        // An invalidation between the check and the put may have missed the entry, so take it out again
+        if (invalidatedSince(shortCode, stamp)) {
+            cache.asMap().remove(shortCode, added);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void invalidate(String shortCode) {
+        invalidations.incrementAndGet(stripe(shortCode));
+        cache.invalidate(shortCode);
+    }
+
+    public void invalidateAll() {
+        fullInvalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        invalidate(event.shortCode());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(ShortenedUrlDeletedEvent event) {
+        invalidate(event.shortCode());
+    }
+
+    private RedirectTarget load(String shortCode, Function<String, RedirectTarget> loader) {
+        SingleFlight.Result<RedirectTarget> result = loads.load(shortCode, code -> {
+            int stripe = stripe(code);
+            long invalidationsBefore = invalidations.get(stripe);
+            long fullInvalidationsBefore = fullInvalidations.get();
+            long started = System.nanoTime();
+            RedirectTarget target = loader.apply(code);
+            // Cached before the flight ends, so a caller arriving after it finds the entry
+            if (enabled && target != null && invalidations.get(stripe) == invalidationsBefore
+                    && fullInvalidations.get() == fullInvalidationsBefore) {
+                cache.put(code, entry(target, System.nanoTime() - started));
+            }
+            return target;
+        });
+        if (!result.loaded()) {
+            coalesced.increment();
+        }
+        return result.value();
+    }
+
+    private boolean invalidatedSince(String shortCode, InvalidationStamp stamp) {
+        return invalidations.get(stripe(shortCode)) != stamp.stripes()[stripe(shortCode)]
+                || fullInvalidations.get() != stamp.full();
+    }
+
+    private static int stripe(String shortCode) {
+        return shortCode.hashCode() & (INVALIDATION_STRIPES - 1);
+    }
+
+    private Entry entry(RedirectTarget target, long loadNanos) {
+        long ttl = ttlNanos;
+        if (target.expiresAt() != null) {
+            ttl = Math.min(ttl, Duration.between(LocalDateTime.now(), target.expiresAt()).toNanos());
+        }
+        return new Entry(target, System.nanoTime() + Math.max(0, ttl), loadNanos);
+    }
+
+    // XFetch: refresh when now - loadNanos * beta * ln(random) passes the expiry, random in (0, 1]
+    private boolean shouldRefreshEarly(Entry entry) {
+        if (earlyRefreshBeta <= 0 || entry.loadNanos() == 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        long margin = (long) (-entry.loadNanos() * earlyRefreshBeta * Math.log(random));
+        return System.nanoTime() + margin - entry.expiresAtNanos() >= 0;
+    }
+}
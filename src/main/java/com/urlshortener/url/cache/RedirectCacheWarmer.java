@@ -0,0 +1,106 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.url.repository.HotRedirect;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preloads the redirect cache with the {@code shortener.cache.warmup.size} most clicked live links at startup,
+ * reading them in keyset pages of {@code page-size} and stopping once {@code time-budget-ms} is spent.
+ * It runs as an application runner, and Spring Boot only switches the readiness state to accepting traffic
+ * after all runners finished, so {@code /actuator/health/readiness} reports out of service until the cache is warm.
+ * A failed warm-up is logged and the node becomes ready with whatever was loaded. Links invalidated while their
+ * page was being read are not preloaded, so a delete on any node cannot be undone by the warm-up.
+ */
+@Component
+@Slf4j
+public class RedirectCacheWarmer implements ApplicationRunner {
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final RedirectCache redirectCache;
+    private final boolean enabled;
+    private final int size;
+    private final int pageSize;
+    private final long timeBudgetMs;
+    private final AtomicLong warmed = new AtomicLong();
+
+    public RedirectCacheWarmer(ShortenedUrlRepository shortenedUrlRepository,
+                               RedirectCache redirectCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortener.cache.warmup.enabled:true}") boolean enabled,
+                               @Value("${shortener.cache.warmup.size:10000}") int size,
+                               @Value("${shortener.cache.warmup.page-size:1000}") int pageSize,
+                               @Value("${shortener.cache.warmup.time-budget-ms:10000}") long timeBudgetMs) {
+        this.shortenedUrlRepository = shortenedUrlRepository;
+        this.redirectCache = redirectCache;
+        this.enabled = enabled;
+        this.size = size;
+        this.pageSize = pageSize;
+        this.timeBudgetMs = timeBudgetMs;
+        Gauge.builder("shortener.cache.warmup.loaded", warmed, AtomicLong::get)
+                .description("Redirects preloaded into the cache at startup")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || !redirectCache.isEnabled() || size <= 0) {
+            return;
+        }
+        try {
+            warmUp();
+        } catch (RuntimeException e) {
+            log.warn("Redirect cache warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of redirects added to the cache
+     */
+    public long warmUp() {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        LocalDateTime now = LocalDateTime.now();
+        Long clicks = Long.MAX_VALUE;
+        String shortCode = "";
+        int read = 0;
+        long loaded = 0;
+        boolean outOfTime = false;
+        while (read < size) {
+            if (System.nanoTime() - deadline > 0) {
+                outOfTime = true;
+                break;
+            }
+            int limit = Math.min(pageSize, size - read);
+            RedirectCache.InvalidationStamp stamp = redirectCache.stamp();
+            List<HotRedirect> page = shortenedUrlRepository.findMostClickedAfter(clicks, shortCode, now, Limit.of(limit));
+            for (HotRedirect hot : page) {
+                if (redirectCache.preload(hot.shortCode(), hot.redirect(), stamp)) {
+                    loaded++;
+                }
+            }
+            read += page.size();
+            if (page.size() < limit) {
+                break;
+            }
+            HotRedirect last = page.get(page.size() - 1);
+            clicks = last.clicks();
+            shortCode = last.shortCode();
+        }
+        warmed.addAndGet(loaded);
+        log.info("Warmed redirect cache with {} of the most clicked links in {} ms{}", loaded,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), outOfTime ? ", time budget exhausted" : "");
+        return loaded;
+    }
+}
@@ -0,0 +1,290 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Invalidates redirect state on all nodes through PostgreSQL {@code LISTEN/NOTIFY} on
+ * {@code shortener.invalidation.channel}. Committed creates and deletes are coalesced per short code and sent
+ * every {@code publish-interval-ms}, packing many codes into one notification. Each node keeps one dedicated
+ * connection, outside the Hikari pool, listening on the channel; received codes are evicted from the
+ * {@link RedirectCache} and the {@link ShortCodeIndex}, and created ones are added to the
+ * {@link MissingShortCodeCache} filter. After the listener reconnects, notifications sent in between are lost,
+ * so all cached redirects and misses are dropped. Only active on PostgreSQL.
+ */
+@Component
+@Slf4j
+public class RedirectInvalidationBus {
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+    // PostgreSQL limits payloads to 8000 bytes
+    private static final int MAX_PAYLOAD_CHARS = 7_900;
+    private static final char CREATED = 'C';
+    private static final char DELETED = 'D';
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final BackgroundThreads backgroundThreads;
+    private final RedirectCache redirectCache;
+    private final MissingShortCodeCache missingShortCodeCache;
+    private final ShortCodeIndex shortCodeIndex;
+    private final boolean enabled;
+    private final String channel;
+    private final long publishIntervalMs;
+    private final int pollTimeoutMs;
+    private final long reconnectDelayMs;
+    // Identifies this node's notifications, which it already applied locally
+    private final String origin = UUID.randomUUID().toString().substring(0, 8);
+    private final ConcurrentHashMap<String, Character> pending = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter fullFlushes;
+
+    private volatile boolean running;
+    private Connection listenerConnection;
+    private ScheduledExecutorService publisher;
+    private ScheduledExecutorService listener;
+
+    public RedirectInvalidationBus(JdbcTemplate jdbcTemplate,
+                                   DataSourceProperties dataSourceProperties,
+                                   BackgroundThreads backgroundThreads,
+                                   RedirectCache redirectCache,
+                                   MissingShortCodeCache missingShortCodeCache,
+                                   ShortCodeIndex shortCodeIndex,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${shortener.invalidation.enabled:true}") boolean enabled,
+                                   @Value("${shortener.invalidation.channel:shortener_invalidation}") String channel,
+                                   @Value("${shortener.invalidation.publish-interval-ms:50}") long publishIntervalMs,
+                                   @Value("${shortener.invalidation.poll-timeout-ms:1000}") int pollTimeoutMs,
+                                   @Value("${shortener.invalidation.reconnect-delay-ms:2000}") long reconnectDelayMs) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid shortener.invalidation.channel: " + channel);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.backgroundThreads = backgroundThreads;
+        this.redirectCache = redirectCache;
+        this.missingShortCodeCache = missingShortCodeCache;
+        this.shortCodeIndex = shortCodeIndex;
+        this.enabled = enabled && dataSourceProperties.determineUrl() != null
+                && dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+        this.channel = channel;
+        this.publishIntervalMs = publishIntervalMs;
+        this.pollTimeoutMs = pollTimeoutMs;
+        this.reconnectDelayMs = reconnectDelayMs;
+        this.sent = Counter.builder("shortener.invalidation.sent").description("Short codes sent to other nodes").register(meterRegistry);
+        this.received = Counter.builder("shortener.invalidation.received").description("Short codes received from other nodes").register(meterRegistry);
+        this.fullFlushes = Counter.builder("shortener.invalidation.full-flushes").description("Cache flushes after a listener reconnect").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        // Listen before the cache is warmed, so nothing committed afterwards is missed
+        try {
+            listenerConnection = connect();
+        } catch (SQLException e) {
+            log.warn("Failed to listen for redirect invalidations, will retry: {}", e.getMessage());
+        }
+        listener = backgroundThreads.newSingleThreadScheduledExecutor("redirect-invalidation-listener");
+        listener.execute(this::listen);
+        publisher = backgroundThreads.newSingleThreadScheduledExecutor("redirect-invalidation-publisher");
+        publisher.scheduleWithFixedDelay(this::publishQuietly, publishIntervalMs, publishIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (publisher != null) {
+            publisher.shutdown();
+            try {
+                publisher.awaitTermination(publishIntervalMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            publishQuietly();
+        }
+        if (listener != null) {
+            listener.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        if (enabled) {
+            pending.put(event.shortCode(), CREATED);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(ShortenedUrlDeletedEvent event) {
+        if (enabled) {
+            pending.put(event.shortCode(), DELETED);
+        }
+    }
+
+    /**
+     * Sends pending invalidations, several codes per notification. Codes of notifications that could not be sent
+     * are put back, unless a newer change of the same code is already pending.
+     *
+     * @return number of codes sent
+     */
+    int publish() {
+        List<String> payloads = new ArrayList<>();
+        List<Map<String, Character>> payloadCodes = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(origin);
+        Map<String, Character> codes = new LinkedHashMap<>();
+        for (String shortCode : List.copyOf(pending.keySet())) {
+            Character type = pending.remove(shortCode);
+            if (type == null) {
+                continue;
+            }
+            if (payload.length() + shortCode.length() + 2 > MAX_PAYLOAD_CHARS) {
+                payloads.add(payload.toString());
+                payloadCodes.add(codes);
+                payload = new StringBuilder(origin);
+                codes = new LinkedHashMap<>();
+            }
+            payload.append('\n').append(type).append(shortCode);
+            codes.put(shortCode, type);
+        }
+        if (codes.isEmpty()) {
+            return 0;
+        }
+        payloads.add(payload.toString());
+        payloadCodes.add(codes);
+        int sentCodes = 0;
+        for (int i = 0; i < payloads.size(); i++) {
+            try {
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, channel, payloads.get(i));
+            } catch (RuntimeException e) {
+                payloadCodes.subList(i, payloadCodes.size()).forEach(unsent -> unsent.forEach(pending::putIfAbsent));
+                sent.increment(sentCodes);
+                throw e;
+            }
+            sentCodes += payloadCodes.get(i).size();
+        }
+        sent.increment(sentCodes);
+        return sentCodes;
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish redirect invalidations, will retry: {}", e.getMessage());
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + channel);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    private void listen() {
+        Connection connection = listenerConnection;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connection = connect();
+                    fullFlush();
+                    log.info("Reconnected redirect invalidation listener on channel {}", channel);
+                }
+                PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(pollTimeoutMs);
+                if (notifications != null && notifications.length > 0) {
+                    apply(notifications);
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Redirect invalidation listener failed, reconnecting: {}", e.getMessage());
+                closeQuietly(connection);
+                connection = null;
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException interrupted) {
+                    break;
+                }
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private void apply(PGNotification[] notifications) {
+        // Coalesce a burst into one eviction per code, the last notification wins
+        Map<String, Character> codes = new LinkedHashMap<>();
+        for (PGNotification notification : notifications) {
+            String[] lines = notification.getParameter().split("\n");
+            if (lines.length < 2 || origin.equals(lines[0])) {
+                continue;
+            }
+            for (int i = 1; i < lines.length; i++) {
+                if (lines[i].length() > 1) {
+                    codes.put(lines[i].substring(1), lines[i].charAt(0));
+                }
+            }
+        }
+        codes.forEach((shortCode, type) -> {
+            redirectCache.invalidate(shortCode);
+            shortCodeIndex.remove(shortCode);
+            if (type == CREATED) {
+                missingShortCodeCache.markCreated(shortCode);
+            }
+        });
+        received.increment(codes.size());
+    }
+
+    private void fullFlush() {
+        redirectCache.invalidateAll();
+        missingShortCodeCache.reset();
+        fullFlushes.increment();
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close redirect invalidation listener connection: {}", e.getMessage());
+        }
+    }
+}
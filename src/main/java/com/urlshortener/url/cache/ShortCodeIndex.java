@@ -0,0 +1,309 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.models.ShortUrlDeletion;
+import com.urlshortener.url.models.ShortenerMetadata;
+import com.urlshortener.url.repository.RedirectTarget;
+import com.urlshortener.url.repository.ShortUrlDeletionRepository;
+import com.urlshortener.url.repository.ShortenerMetadataRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Node-local, memory-mapped index of redirects under {@code shortener.index.directory}, so a restarted node
+ * answers redirects from the page cache instead of sending all of them to the database at once. Codes are added
+ * when created on this node or loaded from the database, and removed when deleted. The database stays the
+ * source of truth: deletions are also logged in {@code short_url_deletions}, and the index records the last log
+ * id it applied as its generation, catching up every {@code shortener.index.deletion-poll-seconds} and at
+ * startup. A snapshot is discarded and started empty when it was not closed cleanly, belongs to another database,
+ * or the log entries it still needs were pruned. The directory must not be shared between nodes.
+ * <p>
+ * A code read from the database is indexed with the {@link #stamp(String)} taken before the read, and skipped when
+ * the code was removed since, so a read racing with a delete cannot put the deleted row back.
+ */
+@Component
+@Slf4j
+public class ShortCodeIndex {
+    static final String DATABASE_ID = "database-id";
+    private static final int REMOVAL_STRIPES = 1024;
+
+    private final ShortUrlDeletionRepository shortUrlDeletionRepository;
+    private final ShortenerMetadataRepository shortenerMetadataRepository;
+    private final BackgroundThreads backgroundThreads;
+    private final boolean enabled;
+    private final Path directory;
+    private final int initialCapacity;
+    private final int chunkBytes;
+    private final long deletionPollSeconds;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Bumped under the write lock by removals, so a put of a row read before one can be refused
+    private final AtomicLongArray removals = new AtomicLongArray(REMOVAL_STRIPES);
+
+    private ShortCodeIndexFile file;
+    private ScheduledExecutorService poller;
+
+    public ShortCodeIndex(ShortUrlDeletionRepository shortUrlDeletionRepository,
+                          ShortenerMetadataRepository shortenerMetadataRepository,
+                          BackgroundThreads backgroundThreads,
+                          MeterRegistry meterRegistry,
+                          @Value("${shortener.index.enabled:false}") boolean enabled,
+                          @Value("${shortener.index.directory:short-code-index}") String directory,
+                          @Value("${shortener.index.initial-capacity:1048576}") int initialCapacity,
+                          @Value("${shortener.index.chunk-bytes:67108864}") int chunkBytes,
+                          @Value("${shortener.index.deletion-poll-seconds:5}") long deletionPollSeconds) {
+        this.shortUrlDeletionRepository = shortUrlDeletionRepository;
+        this.shortenerMetadataRepository = shortenerMetadataRepository;
+        this.backgroundThreads = backgroundThreads;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.initialCapacity = initialCapacity;
+        this.chunkBytes = chunkBytes;
+        this.deletionPollSeconds = deletionPollSeconds;
+        Gauge.builder("shortener.index.size", this, ShortCodeIndex::size)
+                .description("Short codes in the node-local redirect index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        UUID databaseId = databaseId();
+        try {
+            ShortCodeIndexFile snapshot = ShortCodeIndexFile.open(directory);
+            String rejected = snapshot == null ? "missing or not closed cleanly" : rejectionReason(snapshot, databaseId);
+            if (rejected == null) {
+                file = snapshot;
+                int applied = catchUp();
+                log.info("Opened short code index with {} codes in {} ms, applied {} deletions", snapshot.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), applied);
+            } else {
+                if (snapshot != null) {
+                    snapshot.close();
+                }
+                Long newest = shortUrlDeletionRepository.findMaxId();
+                file = ShortCodeIndexFile.create(directory, initialCapacity, chunkBytes, databaseId,
+                        newest != null ? newest : 0L);
+                log.info("Started empty short code index in {}: snapshot {}", directory, rejected);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open short code index in " + directory, e);
+        }
+        poller = backgroundThreads.newSingleThreadScheduledExecutor("short-code-index-poller");
+        poller.scheduleWithFixedDelay(this::catchUpQuietly, deletionPollSeconds, deletionPollSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+        lock.writeLock().lock();
+        try {
+            if (file != null) {
+                file.close();
+                file = null;
+            }
+        } catch (IOException e) {
+            log.warn("Failed to close short code index, it will be rebuilt on the next start: {}", e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the indexed redirect of the code, or {@code null} when it is not indexed. Expiry is left to the caller.
+     */
+    public RedirectTarget get(String shortCode) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return file != null ? file.get(shortCode) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the removal stamp of the code, to take before reading it from the database and pass to
+     * {@link #put(String, RedirectTarget, long)}.
+     */
+    public long stamp(String shortCode) {
+        return removals.get(stripe(shortCode));
+    }
+
+    /**
+     * Indexes a redirect read from the database, unless the code was removed since {@code stamp} was taken.
+     */
+    public void put(String shortCode, RedirectTarget redirect, long stamp) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (removals.get(stripe(shortCode)) == stamp) {
+                put(shortCode, redirect);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(String shortCode, RedirectTarget redirect) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (file != null && !file.put(shortCode, redirect)) {
+                log.debug("Short code {} does not fit the short code index", shortCode);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to index short code {}: {}", shortCode, e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        put(event.shortCode(), event.redirect());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(ShortenedUrlDeletedEvent event) {
+        remove(event.shortCode());
+    }
+
+    public void remove(String shortCode) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removals.incrementAndGet(stripe(shortCode));
+            if (file != null) {
+                file.remove(shortCode);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return file != null ? file.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies the deletion log entries newer than the index generation, including those made by other nodes.
+     *
+     * @return number of entries applied
+     */
+    int catchUp() {
+        int applied = 0;
+        while (true) {
+            long generation;
+            lock.readLock().lock();
+            try {
+                if (file == null) {
+                    return applied;
+                }
+                generation = file.generation();
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<ShortUrlDeletion> deletions = shortUrlDeletionRepository.findByIdGreaterThanOrderByIdAsc(generation, Limit.of(1000));
+            if (deletions.isEmpty()) {
+                return applied;
+            }
+            lock.writeLock().lock();
+            try {
+                if (file == null) {
+                    return applied;
+                }
+                deletions.forEach(deletion -> {
+                    removals.incrementAndGet(stripe(deletion.getShortCode()));
+                    file.remove(deletion.getShortCode());
+                });
+                file.setGeneration(deletions.get(deletions.size() - 1).getId());
+            } finally {
+                lock.writeLock().unlock();
+            }
+            applied += deletions.size();
+        }
+    }
+
+    private static int stripe(String shortCode) {
+        return shortCode.hashCode() & (REMOVAL_STRIPES - 1);
+    }
+
+    private void catchUpQuietly() {
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            log.warn("Failed to apply short URL deletions to the short code index: {}", e.getMessage());
+        }
+    }
+
+    private String rejectionReason(ShortCodeIndexFile snapshot, UUID databaseId) {
+        if (!snapshot.databaseId().equals(databaseId)) {
+            return "belongs to another database";
+        }
+        Long oldest = shortUrlDeletionRepository.findMinId();
+        Long newest = shortUrlDeletionRepository.findMaxId();
+        // Pruning keeps the newest entry, so a gap before the oldest one means missed deletions
+        if (oldest != null && snapshot.generation() < oldest - 1) {
+            return "is older than the deletion log";
+        }
+        if (snapshot.generation() > (newest != null ? newest : 0L)) {
+            return "is ahead of the deletion log";
+        }
+        if (snapshot.deadBytes() * 2 > snapshot.dataBytes()) {
+            return "holds mostly replaced records";
+        }
+        return null;
+    }
+
+    private UUID databaseId() {
+        return shortenerMetadataRepository.findById(DATABASE_ID)
+                .map(metadata -> UUID.fromString(metadata.getValue()))
+                .orElseGet(() -> {
+                    try {
+                        String id = UUID.randomUUID().toString();
+                        shortenerMetadataRepository.saveAndFlush(new ShortenerMetadata(DATABASE_ID, id));
+                        return UUID.fromString(id);
+                    } catch (DataIntegrityViolationException e) {
+                        // Another node created it first
+                        return UUID.fromString(shortenerMetadataRepository.findById(DATABASE_ID).orElseThrow().getValue());
+                    }
+                });
+    }
+}
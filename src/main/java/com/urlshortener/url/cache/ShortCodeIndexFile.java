@@ -0,0 +1,412 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.common.helpers.UrlHash;
+import com.urlshortener.url.repository.RedirectTarget;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Memory-mapped open-addressing hash table from short code to a redirect record in an append-only data file.
+ * Slots hold the 64-bit hash of the code and the record offset, probed linearly; removed codes leave a
+ * tombstone. Replaced and removed records stay in the data file as dead bytes until the index is rebuilt.
+ * The header is only written on {@link #close()}, which also marks the files clean; a file that was not closed
+ * cleanly is refused by {@link #open}. Not thread-safe, {@link ShortCodeIndex} guards it with a read-write lock.
+ */
+final class ShortCodeIndexFile {
+    static final String INDEX_FILE = "short-codes.idx";
+    static final String DATA_FILE = "short-codes.dat";
+
+    private static final long MAGIC = 0x53484F5254494458L; // "SHORTIDX"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 128;
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 26;
+    private static final long EMPTY = 0;
+    private static final long TOMBSTONE = -1;
+    // Offset 0 means an empty slot, so records start after a small reserved prefix
+    private static final long FIRST_RECORD = Long.BYTES;
+    private static final UrlEnums.RedirectPolicy[] POLICIES = UrlEnums.RedirectPolicy.values();
+    // code length, expiry seconds and nanos, user flag and id, redirect policy, url length
+    private static final int RECORD_FIXED_BYTES = Short.BYTES + Long.BYTES + Integer.BYTES + 1 + 2 * Long.BYTES + 1 + Integer.BYTES;
+
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 8;
+    private static final int CLEAN_AT = 12;
+    private static final int CAPACITY_AT = 16;
+    private static final int SIZE_AT = 20;
+    private static final int TOMBSTONES_AT = 24;
+    private static final int GENERATION_AT = 32;
+    private static final int DATABASE_MSB_AT = 40;
+    private static final int DATABASE_LSB_AT = 48;
+    private static final int DATA_END_AT = 56;
+    private static final int DEAD_BYTES_AT = 64;
+    private static final int CHUNK_BYTES_AT = 72;
+
+    private final Path directory;
+    private final int chunkBytes;
+    private final UUID databaseId;
+    private final FileChannel dataChannel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private int tombstones;
+    private long generation;
+    private long dataEnd;
+    private long deadBytes;
+
+    private ShortCodeIndexFile(Path directory, int chunkBytes, UUID databaseId, FileChannel dataChannel) {
+        this.directory = directory;
+        this.chunkBytes = chunkBytes;
+        this.databaseId = databaseId;
+        this.dataChannel = dataChannel;
+    }
+
+    /**
+     * Creates empty index and data files, replacing any existing ones.
+     */
+    static ShortCodeIndexFile create(Path directory, int expectedCodes, int chunkBytes, UUID databaseId,
+                                     long generation) throws IOException {
+        Files.createDirectories(directory);
+        delete(directory);
+        FileChannel dataChannel = FileChannel.open(directory.resolve(DATA_FILE),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ShortCodeIndexFile file = new ShortCodeIndexFile(directory, chunkBytes, databaseId, dataChannel);
+        file.generation = generation;
+        file.dataEnd = FIRST_RECORD;
+        file.capacity = capacityFor(expectedCodes);
+        file.index = file.mapIndex(directory.resolve(INDEX_FILE), file.capacity, true);
+        file.writeHeader(file.index, false);
+        return file;
+    }
+
+    /**
+     * Maps existing files, or returns {@code null} when they are missing, of another format or were not closed
+     * cleanly. The files are marked dirty until the next {@link #close()}. They keep the chunk size they were
+     * created with.
+     */
+    static ShortCodeIndexFile open(Path directory) throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE);
+        Path dataPath = directory.resolve(DATA_FILE);
+        if (!Files.isRegularFile(indexPath) || !Files.isRegularFile(dataPath) || Files.size(indexPath) < HEADER_BYTES) {
+            return null;
+        }
+        MappedByteBuffer header;
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        }
+        int capacity = header.getInt(CAPACITY_AT);
+        long dataEnd = header.getLong(DATA_END_AT);
+        int chunkBytes = header.getInt(CHUNK_BYTES_AT);
+        if (header.getLong(MAGIC_AT) != MAGIC || header.getInt(VERSION_AT) != VERSION || header.getInt(CLEAN_AT) != 1
+                || Integer.bitCount(capacity) != 1 || capacity < MIN_CAPACITY || capacity > MAX_CAPACITY
+                || Files.size(indexPath) < HEADER_BYTES + (long) capacity * SLOT_BYTES
+                || chunkBytes <= FIRST_RECORD || dataEnd < FIRST_RECORD || Files.size(dataPath) < dataEnd) {
+            return null;
+        }
+        FileChannel dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ShortCodeIndexFile file = new ShortCodeIndexFile(directory, chunkBytes,
+                new UUID(header.getLong(DATABASE_MSB_AT), header.getLong(DATABASE_LSB_AT)), dataChannel);
+        file.capacity = capacity;
+        file.size = header.getInt(SIZE_AT);
+        file.tombstones = header.getInt(TOMBSTONES_AT);
+        file.generation = header.getLong(GENERATION_AT);
+        file.dataEnd = dataEnd;
+        file.deadBytes = header.getLong(DEAD_BYTES_AT);
+        file.index = file.mapIndex(indexPath, capacity, false);
+        // Map every written chunk up front, so lookups under a shared lock never change the chunk list
+        file.chunk(dataEnd - 1);
+        file.index.putInt(CLEAN_AT, 0);
+        file.index.force();
+        return file;
+    }
+
+    static void delete(Path directory) throws IOException {
+        Files.deleteIfExists(directory.resolve(INDEX_FILE));
+        Files.deleteIfExists(directory.resolve(DATA_FILE));
+    }
+
+    UUID databaseId() {
+        return databaseId;
+    }
+
+    /**
+     * Id of the last entry of the deletion log applied to this index.
+     */
+    long generation() {
+        return generation;
+    }
+
+    void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long dataBytes() {
+        return dataEnd;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    RedirectTarget get(String shortCode) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(UrlHash.of(shortCode), code);
+        return slot >= 0 ? readRedirect(index.getLong(slotAt(slot) + Long.BYTES), code.length) : null;
+    }
+
+    /**
+     * Stores the redirect of a code, replacing any previous one.
+     *
+     * @return {@code false} when the record is too large for a data chunk or the table is full
+     */
+    boolean put(String shortCode, RedirectTarget redirect) throws IOException {
+        long hash = UrlHash.of(shortCode);
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(hash, code);
+        if (slot >= 0) {
+            long previous = index.getLong(slotAt(slot) + Long.BYTES);
+            if (redirect.equals(readRedirect(previous, code.length))) {
+                return true;
+            }
+            long offset = append(code, redirect);
+            if (offset < 0) {
+                return false;
+            }
+            deadBytes += recordLength(previous);
+            index.putLong(slotAt(slot) + Long.BYTES, offset);
+            return true;
+        }
+        if ((long) (size + 1) * 4 > (long) MAX_CAPACITY * 3) {
+            return false;
+        }
+        long offset = append(code, redirect);
+        if (offset < 0) {
+            return false;
+        }
+        int free = -slot - 1;
+        if (index.getLong(slotAt(free) + Long.BYTES) == TOMBSTONE) {
+            tombstones--;
+        }
+        index.putLong(slotAt(free), hash);
+        index.putLong(slotAt(free) + Long.BYTES, offset);
+        size++;
+        if ((long) (size + tombstones) * 4 > (long) capacity * 3) {
+            rehash(capacityFor(size));
+        }
+        return true;
+    }
+
+    boolean remove(String shortCode) {
+        byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+        int slot = findSlot(UrlHash.of(shortCode), code);
+        if (slot < 0) {
+            return false;
+        }
+        deadBytes += recordLength(index.getLong(slotAt(slot) + Long.BYTES));
+        index.putLong(slotAt(slot) + Long.BYTES, TOMBSTONE);
+        size--;
+        tombstones++;
+        return true;
+    }
+
+    /**
+     * Writes the mapped pages and the header to disk and marks the files clean.
+     */
+    void close() throws IOException {
+        chunks.forEach(MappedByteBuffer::force);
+        index.force();
+        writeHeader(index, true);
+        index.force();
+        dataChannel.close();
+    }
+
+    private static int capacityFor(int codes) {
+        long wanted = Math.max(MIN_CAPACITY, (long) codes * 2);
+        return (int) Math.min(MAX_CAPACITY, Long.highestOneBit(wanted - 1) << 1);
+    }
+
+    private static int slotAt(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /**
+     * Returns the slot holding the code, or {@code -(slot + 1)} of the first free slot on its probe sequence.
+     */
+    private int findSlot(long hash, byte[] code) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        int firstFree = -1;
+        while (true) {
+            long offset = index.getLong(slotAt(slot) + Long.BYTES);
+            if (offset == EMPTY) {
+                return -(firstFree >= 0 ? firstFree : slot) - 1;
+            }
+            if (offset == TOMBSTONE) {
+                if (firstFree < 0) {
+                    firstFree = slot;
+                }
+            } else if (index.getLong(slotAt(slot)) == hash && codeMatches(offset, code)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void rehash(int newCapacity) throws IOException {
+        Path tmp = directory.resolve(INDEX_FILE + ".tmp");
+        Files.deleteIfExists(tmp);
+        MappedByteBuffer rehashed = mapIndex(tmp, newCapacity, true);
+        int mask = newCapacity - 1;
+        for (int slot = 0; slot < capacity; slot++) {
+            long offset = index.getLong(slotAt(slot) + Long.BYTES);
+            if (offset == EMPTY || offset == TOMBSTONE) {
+                continue;
+            }
+            long hash = index.getLong(slotAt(slot));
+            int target = (int) hash & mask;
+            while (rehashed.getLong(slotAt(target) + Long.BYTES) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            rehashed.putLong(slotAt(target), hash);
+            rehashed.putLong(slotAt(target) + Long.BYTES, offset);
+        }
+        capacity = newCapacity;
+        tombstones = 0;
+        writeHeader(rehashed, false);
+        Files.move(tmp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = rehashed;
+    }
+
+    private MappedByteBuffer mapIndex(Path path, int capacity, boolean create) throws IOException {
+        try (FileChannel channel = create
+                ? FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        }
+    }
+
+    private void writeHeader(MappedByteBuffer buffer, boolean clean) {
+        buffer.putLong(MAGIC_AT, MAGIC);
+        buffer.putInt(VERSION_AT, VERSION);
+        buffer.putInt(CAPACITY_AT, capacity);
+        buffer.putInt(SIZE_AT, size);
+        buffer.putInt(TOMBSTONES_AT, tombstones);
+        buffer.putLong(GENERATION_AT, generation);
+        buffer.putLong(DATABASE_MSB_AT, databaseId.getMostSignificantBits());
+        buffer.putLong(DATABASE_LSB_AT, databaseId.getLeastSignificantBits());
+        buffer.putLong(DATA_END_AT, dataEnd);
+        buffer.putLong(DEAD_BYTES_AT, deadBytes);
+        buffer.putInt(CHUNK_BYTES_AT, chunkBytes);
+        buffer.putInt(CLEAN_AT, clean ? 1 : 0);
+    }
+
+    private MappedByteBuffer chunk(long offset) throws IOException {
+        int chunk = (int) (offset / chunkBytes);
+        while (chunks.size() <= chunk) {
+            chunks.add(dataChannel.map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * chunkBytes, chunkBytes));
+        }
+        return chunks.get(chunk);
+    }
+
+    // Records never straddle two chunks, and every chunk holding a record is already mapped
+    private MappedByteBuffer mappedChunk(long offset) {
+        return chunks.get((int) (offset / chunkBytes));
+    }
+
+    private long append(byte[] code, RedirectTarget redirect) throws IOException {
+        byte[] url = redirect.originalUrl().getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_FIXED_BYTES + code.length + url.length;
+        if (length > chunkBytes || code.length > 0xFFFF) {
+            return -1;
+        }
+        long offset = dataEnd;
+        int position = (int) (offset % chunkBytes);
+        if (position + length > chunkBytes) {
+            deadBytes += chunkBytes - position;
+            offset += chunkBytes - position;
+            position = 0;
+        }
+        MappedByteBuffer chunk = chunk(offset);
+        chunk.putShort(position, (short) code.length);
+        position += Short.BYTES;
+        chunk.put(position, code);
+        position += code.length;
+        LocalDateTime expiresAt = redirect.expiresAt();
+        chunk.putLong(position, expiresAt != null ? expiresAt.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE);
+        chunk.putInt(position + Long.BYTES, expiresAt != null ? expiresAt.getNano() : 0);
+        position += Long.BYTES + Integer.BYTES;
+        UUID userId = redirect.userId();
+        chunk.put(position, (byte) (userId != null ? 1 : 0));
+        chunk.putLong(position + 1, userId != null ? userId.getMostSignificantBits() : 0);
+        chunk.putLong(position + 1 + Long.BYTES, userId != null ? userId.getLeastSignificantBits() : 0);
+        position += 1 + 2 * Long.BYTES;
+        chunk.put(position, (byte) redirect.redirectPolicy().ordinal());
+        position += 1;
+        chunk.putInt(position, url.length);
+        chunk.put(position + Integer.BYTES, url);
+        dataEnd = offset + length;
+        return offset;
+    }
+
+    private boolean codeMatches(long offset, byte[] code) {
+        MappedByteBuffer chunk = mappedChunk(offset);
+        int position = (int) (offset % chunkBytes);
+        if ((chunk.getShort(position) & 0xFFFF) != code.length) {
+            return false;
+        }
+        position += Short.BYTES;
+        for (int i = 0; i < code.length; i++) {
+            if (chunk.get(position + i) != code[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private RedirectTarget readRedirect(long offset, int codeLength) {
+        MappedByteBuffer chunk = mappedChunk(offset);
+        int position = (int) (offset % chunkBytes) + Short.BYTES + codeLength;
+        long expirySeconds = chunk.getLong(position);
+        LocalDateTime expiresAt = expirySeconds != Long.MIN_VALUE
+                ? LocalDateTime.ofEpochSecond(expirySeconds, chunk.getInt(position + Long.BYTES), ZoneOffset.UTC)
+                : null;
+        position += Long.BYTES + Integer.BYTES;
+        UUID userId = chunk.get(position) != 0
+                ? new UUID(chunk.getLong(position + 1), chunk.getLong(position + 1 + Long.BYTES))
+                : null;
+        position += 1 + 2 * Long.BYTES;
+        UrlEnums.RedirectPolicy redirectPolicy = POLICIES[chunk.get(position)];
+        position += 1;
+        byte[] url = new byte[chunk.getInt(position)];
+        chunk.get(position + Integer.BYTES, url);
+        return new RedirectTarget(new String(url, StandardCharsets.UTF_8), expiresAt, userId, redirectPolicy);
+    }
+
+    private long recordLength(long offset) {
+        MappedByteBuffer chunk = mappedChunk(offset);
+        int position = (int) (offset % chunkBytes);
+        int codeLength = chunk.getShort(position) & 0xFFFF;
+        int urlAt = position + Short.BYTES + codeLength + Long.BYTES + Integer.BYTES + 1 + 2 * Long.BYTES + 1;
+        return RECORD_FIXED_BYTES + codeLength + chunk.getInt(urlAt);
+    }
+}
@@ -0,0 +1,57 @@
+package com.urlshortener.url.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Runs at most one load per key at a time; callers arriving while it runs wait for and share its result,
+ * including {@code null} and exceptions. The load runs on the caller's thread outside any lock, so waiting
+ * virtual threads are not pinned.
+ */
+final class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Result of a load and whether this caller ran it.
+     */
+    record Result<V>(V value, boolean loaded) {
+    }
+
+    Result<V> load(K key, Function<K, V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, call);
+        if (running != null) {
+            return new Result<>(await(running), false);
+        }
+        try {
+            V value = loader.apply(key);
+            call.complete(value);
+            return new Result<>(value, true);
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    boolean isLoading(K key) {
+        return calls.containsKey(key);
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
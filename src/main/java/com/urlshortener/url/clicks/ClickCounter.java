@@ -0,0 +1,205 @@
+package com.urlshortener.url.clicks;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aggregates redirect clicks in memory and writes them to {@code short_urls.clicks} in JDBC batches every
+ * {@code shortener.clicks.flush-interval-ms}, so redirects never write to the database themselves.
+ * Clicks go into the current generation of {@link LongAdder}s; a flush swaps in a new generation, waits for
+ * in-flight increments on the old one and writes it out, so no click is lost or counted twice.
+ * Failed flushes are merged back and retried; pending clicks are drained on shutdown.
+ * With {@link ClickJournal} enabled, each generation also journals its clicks under its own epoch, and counts
+ * recovered from a previous run are flushed with the first generation.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ClickCounter {
+    private static final String UPDATE_SQL = "UPDATE short_urls SET clicks = clicks + ? WHERE short_code = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ClickJournal clickJournal;
+    private final BackgroundThreads backgroundThreads;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private volatile Generation current;
+
+    @Value("${shortener.clicks.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${shortener.clicks.batch-size:500}")
+    private int batchSize;
+
+    private ScheduledExecutorService flusher;
+    private DistributionSummary flushSize;
+    private Timer flushLag;
+
+    private static final class Generation {
+        final ConcurrentHashMap<String, LongAdder> counts = new ConcurrentHashMap<>();
+        final LongAdder writers = new LongAdder();
+        final AtomicLong firstClickNanos = new AtomicLong();
+        final ClickJournal.Segments segments;
+
+        Generation(ClickJournal.Segments segments) {
+            this.segments = segments;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        current = new Generation(clickJournal.open());
+        ClickJournal.Recovery recovery = clickJournal.recover();
+        recovery.counts().forEach(this::mergeBack);
+        if (current.segments != null) {
+            current.segments.inherit(recovery.segmentIds());
+        }
+        Gauge.builder("shortener.clicks.pending", this, counter -> counter.current.counts.size())
+                .description("Short codes with clicks not yet written to the database")
+                .register(meterRegistry);
+        flushSize = DistributionSummary.builder("shortener.clicks.flush.size")
+                .description("Rows updated per click flush")
+                .register(meterRegistry);
+        flushLag = Timer.builder("shortener.clicks.flush.lag")
+                .description("Time from the oldest pending click to its flush")
+                .register(meterRegistry);
+        flusher = backgroundThreads.newSingleThreadScheduledExecutor("click-flusher");
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void record(String shortCode) {
+        while (true) {
+            Generation generation = current;
+            generation.writers.increment();
+            try {
+                // The flusher swaps generations before waiting for writers, so re-check after registering
+                if (generation != current) {
+                    continue;
+                }
+                if (generation.segments != null) {
+                    appendToJournal(generation.segments, shortCode);
+                }
+                generation.counts.computeIfAbsent(shortCode, code -> new LongAdder()).increment();
+                generation.firstClickNanos.compareAndSet(0, System.nanoTime());
+                return;
+            } finally {
+                generation.writers.decrement();
+            }
+        }
+    }
+
+    /**
+     * Writes all pending clicks to the database.
+     *
+     * @return number of rows updated
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Generation flushed = current;
+            if (flushed.counts.isEmpty() && (flushed.segments == null || flushed.segments.ids().isEmpty())) {
+                return 0;
+            }
+            current = new Generation(clickJournal.open());
+            while (flushed.writers.sum() != 0) {
+                Thread.onSpinWait();
+            }
+
+            List<Object[]> rows = new ArrayList<>(flushed.counts.size());
+            for (Map.Entry<String, LongAdder> entry : flushed.counts.entrySet()) {
+                rows.add(new Object[]{entry.getValue().sum(), entry.getKey()});
+            }
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    for (int from = 0; from < rows.size(); from += batchSize) {
+                        jdbcTemplate.batchUpdate(UPDATE_SQL, rows.subList(from, Math.min(from + batchSize, rows.size())));
+                    }
+                    if (flushed.segments != null) {
+                        clickJournal.markApplied(flushed.segments);
+                    }
+                });
+            } catch (RuntimeException e) {
+                rows.forEach(row -> mergeBack((String) row[1], (Long) row[0]));
+                if (current.segments != null) {
+                    current.segments.inherit(flushed.segments);
+                }
+                throw e;
+            }
+            if (flushed.segments != null) {
+                clickJournal.discard(flushed.segments);
+            }
+            flushSize.record(rows.size());
+            flushLag.record(System.nanoTime() - flushed.firstClickNanos.get(), TimeUnit.NANOSECONDS);
+            log.debug("Flushed clicks for {} short codes", rows.size());
+            return rows.size();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void mergeBack(String shortCode, long clicks) {
+        Generation generation = current;
+        generation.counts.computeIfAbsent(shortCode, code -> new LongAdder()).add(clicks);
+        generation.firstClickNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    private void appendToJournal(ClickJournal.Segments segments, String shortCode) {
+        try {
+            segments.append(shortCode);
+        } catch (UncheckedIOException e) {
+            // Still counted in memory, only durability is lost
+            log.warn("Failed to journal click for {}: {}", shortCode, e.getMessage());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            ClickJournal.Segments segments = current.segments;
+            if (segments != null) {
+                segments.force();
+            }
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush clicks, will retry: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushIntervalMs * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int rows = flush();
+        log.info("Drained clicks for {} short codes on shutdown", rows);
+    }
+}
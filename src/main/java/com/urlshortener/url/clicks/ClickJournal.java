@@ -0,0 +1,321 @@
+package com.urlshortener.url.clicks;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Optional write-ahead journal for {@link ClickCounter}. Every click is appended as a fixed-size record to a
+ * memory-mapped segment file under {@code shortener.clicks.journal.directory}, so recording it costs no syscall
+ * and survives a process crash. Segments are shared by all counter generations and only rolled once full, so the
+ * number of mapped files does not grow with the flush rate. Each record carries the epoch of the generation that
+ * wrote it; a flush records the highest applied epoch of every segment it covered in the same transaction as the
+ * counts, so records left behind by a crash are replayed at startup exactly once. A full segment is deleted once
+ * no record in it is still pending. The directory must not be shared between nodes.
+ */
+@Component
+@Slf4j
+public class ClickJournal {
+    static final int RECORD_SIZE = 64;
+    private static final int HEADER_OFFSET = RECORD_SIZE - Integer.BYTES;
+    private static final int EPOCH_OFFSET = HEADER_OFFSET - Long.BYTES;
+    private static final int MAX_CODE_BYTES = EPOCH_OFFSET;
+    // Applied epoch of segments inherited from a previous run, whose records are all folded in by the next flush
+    private static final long ALL_EPOCHS = Long.MAX_VALUE;
+    private static final String SEGMENT_SUFFIX = ".clicks";
+    private static final VarHandle RECORD_LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final String UPDATE_APPLIED_SQL = "UPDATE click_journal_segments SET applied_epoch = ?, applied_at = ? WHERE segment_id = ?";
+    private static final String INSERT_APPLIED_SQL = "INSERT INTO click_journal_segments (segment_id, applied_epoch, applied_at) VALUES (?, ?, ?)";
+    private static final String DELETE_APPLIED_SQL = "DELETE FROM click_journal_segments WHERE segment_id = ?";
+    private static final String APPLIED_EPOCH_SQL = "SELECT applied_epoch FROM click_journal_segments WHERE segment_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final AtomicLong epochs = new AtomicLong();
+    private final ReentrantLock rollLock = new ReentrantLock();
+    private volatile Segment active;
+
+    public ClickJournal(JdbcTemplate jdbcTemplate,
+                        @Value("${shortener.clicks.journal.enabled:false}") boolean enabled,
+                        @Value("${shortener.clicks.journal.directory:click-journal}") String directory,
+                        @Value("${shortener.clicks.journal.segment-bytes:67108864}") int segmentBytes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = Math.max(RECORD_SIZE, segmentBytes - segmentBytes % RECORD_SIZE);
+    }
+
+    public record Recovery(Map<String, Long> counts, List<String> segmentIds) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts the epoch of a new counter generation, or returns {@code null} when journaling is disabled.
+     */
+    public Segments open() {
+        return enabled ? new Segments(epochs.incrementAndGet()) : null;
+    }
+
+    /**
+     * Reads the counts of records left behind by a previous run. Segments without pending records are deleted.
+     */
+    public Recovery recover() {
+        Map<String, Long> counts = new HashMap<>();
+        List<String> segmentIds = new ArrayList<>();
+        if (!enabled) {
+            return new Recovery(counts, segmentIds);
+        }
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    String segmentId = segmentId(file);
+                    List<Long> applied = jdbcTemplate.queryForList(APPLIED_EPOCH_SQL, Long.class, segmentId);
+                    long appliedEpoch = applied.isEmpty() ? 0 : applied.get(0);
+                    if (appliedEpoch == ALL_EPOCHS || readSegment(file, appliedEpoch, counts) == 0) {
+                        delete(segmentId);
+                        continue;
+                    }
+                    segmentIds.add(segmentId);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read click journal in " + directory, e);
+        }
+        if (!segmentIds.isEmpty()) {
+            log.info("Recovered clicks for {} short codes from {} journal segments", counts.size(), segmentIds.size());
+        }
+        return new Recovery(counts, segmentIds);
+    }
+
+    /**
+     * Records the generation's records as folded into {@code short_urls.clicks}. Must run in the transaction that
+     * applied them.
+     */
+    public void markApplied(Segments applied) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Segment segment : applied.covered()) {
+            markApplied(segment.id, applied.epoch, now);
+        }
+        for (String segmentId : applied.inherited()) {
+            markApplied(segmentId, ALL_EPOCHS, now);
+        }
+    }
+
+    /**
+     * Deletes the segment files, and then their markers, that hold no pending record once the generation is applied.
+     */
+    public void discard(Segments applied) {
+        for (Segment segment : applied.covered()) {
+            // The active segment still takes records, and a full one may hold records of a later generation
+            if (segment != active && segment.lastEpoch.get() <= applied.epoch) {
+                delete(segment.id);
+            }
+        }
+        applied.inherited().forEach(this::delete);
+    }
+
+    private void markApplied(String segmentId, long epoch, LocalDateTime now) {
+        if (jdbcTemplate.update(UPDATE_APPLIED_SQL, epoch, now, segmentId) == 0) {
+            jdbcTemplate.update(INSERT_APPLIED_SQL, segmentId, epoch, now);
+        }
+    }
+
+    private void delete(String segmentId) {
+        try {
+            Files.deleteIfExists(directory.resolve(segmentId + SEGMENT_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Failed to delete click journal segment {}: {}", segmentId, e.getMessage());
+            return;
+        }
+        jdbcTemplate.update(DELETE_APPLIED_SQL, segmentId);
+    }
+
+    // Returns the number of records written after the applied epoch
+    private int readSegment(Path file, long appliedEpoch, Map<String, Long> counts) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size() - channel.size() % RECORD_SIZE;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] code = new byte[MAX_CODE_BYTES];
+            int pending = 0;
+            // Records are reserved concurrently, so an unfinished one can sit between written ones
+            for (int offset = 0; offset < size; offset += RECORD_SIZE) {
+                int length = buffer.getInt(offset + HEADER_OFFSET);
+                if (length <= 0 || length > MAX_CODE_BYTES || buffer.getLong(offset + EPOCH_OFFSET) <= appliedEpoch) {
+                    continue;
+                }
+                buffer.get(offset, code, 0, length);
+                counts.merge(new String(code, 0, length, StandardCharsets.UTF_8), 1L, Long::sum);
+                pending++;
+            }
+            return pending;
+        }
+    }
+
+    private static String segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+    }
+
+    // A lock rather than synchronized: mapping a file under a monitor would pin a virtual thread
+    private void roll(Segment full) {
+        rollLock.lock();
+        try {
+            if (active == full) {
+                active = createSegment();
+            }
+        } finally {
+            rollLock.unlock();
+        }
+    }
+
+    private Segment createSegment() {
+        String segmentId = UUID.randomUUID().toString();
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(directory.resolve(segmentId + SEGMENT_SUFFIX),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed
+                return new Segment(segmentId, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create click journal segment in " + directory, e);
+        }
+    }
+
+    private static final class Segment {
+        final String id;
+        final MappedByteBuffer buffer;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicLong lastEpoch = new AtomicLong();
+
+        Segment(String id, MappedByteBuffer buffer) {
+            this.id = id;
+            this.buffer = buffer;
+        }
+
+        boolean append(byte[] code, long epoch) {
+            // Raised before reserving, so a segment is never seen as applied while a later record is being written
+            lastEpoch.accumulateAndGet(epoch, Math::max);
+            int offset = next.getAndAdd(RECORD_SIZE);
+            if (offset < 0 || offset > buffer.capacity() - RECORD_SIZE) {
+                return false;
+            }
+            buffer.put(offset, code);
+            buffer.putLong(offset + EPOCH_OFFSET, epoch);
+            // The length is the commit marker, publish it after the code bytes and epoch
+            RECORD_LENGTH.setRelease(buffer, offset + HEADER_OFFSET, code.length);
+            return true;
+        }
+    }
+
+    /**
+     * Records of one counter generation, and the segments it covers: those it wrote to and those taken over from
+     * a failed flush.
+     */
+    public final class Segments {
+        private final long epoch;
+        private final Set<Segment> covered = ConcurrentHashMap.newKeySet();
+        private final Set<String> inherited = new HashSet<>();
+        private volatile Segment last;
+
+        private Segments(long epoch) {
+            this.epoch = epoch;
+        }
+
+        public void append(String shortCode) {
+            byte[] code = shortCode.getBytes(StandardCharsets.UTF_8);
+            if (code.length > MAX_CODE_BYTES) {
+                log.warn("Short code {} is too long for the click journal, its clicks are not journaled", shortCode);
+                return;
+            }
+            while (true) {
+                Segment segment = active;
+                if (segment != null) {
+                    boolean appended = segment.append(code, epoch);
+                    // Also when it was full, since its last epoch was raised to ours either way
+                    cover(segment);
+                    if (appended) {
+                        return;
+                    }
+                }
+                roll(segment);
+            }
+        }
+
+        private void cover(Segment segment) {
+            if (segment != last) {
+                covered.add(segment);
+                last = segment;
+            }
+        }
+
+        /**
+         * Takes over segments recovered from a previous run, whose counts were merged into this generation.
+         */
+        public synchronized void inherit(Collection<String> segmentIds) {
+            inherited.addAll(segmentIds);
+        }
+
+        /**
+         * Takes over what a failed flush covered; this generation's later epoch applies those records as well.
+         */
+        public synchronized void inherit(Segments failed) {
+            covered.addAll(failed.covered);
+            inherited.addAll(failed.inherited());
+        }
+
+        public synchronized List<String> ids() {
+            List<String> ids = new ArrayList<>(inherited);
+            covered.forEach(segment -> ids.add(segment.id));
+            return ids;
+        }
+
+        /**
+         * Writes the mapped pages to disk, bounding what an operating system crash can lose.
+         */
+        public void force() {
+            covered.forEach(segment -> segment.buffer.force());
+        }
+
+        private List<Segment> covered() {
+            return List.copyOf(covered);
+        }
+
+        private synchronized List<String> inherited() {
+            return List.copyOf(inherited);
+        }
+    }
+}
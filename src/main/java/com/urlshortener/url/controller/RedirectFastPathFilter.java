@@ -0,0 +1,94 @@
+package com.urlshortener.url.controller;
+
+import com.urlshortener.config.exception.NotFoundException;
+import com.urlshortener.url.repository.RedirectTarget;
+import com.urlshortener.url.service.UrlShortenerService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves anonymous {@code GET /mixed/url/{id}} redirects ahead of the security filter chain and the
+ * DispatcherServlet, writing the redirect directly with the headers of {@link RedirectResponses}. Requests with an {@code Authorization} header, and paths
+ * that need decoding, continue down the chain to {@link UrlController} unchanged.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "shortener.redirect.fast-path.enabled", havingValue = "true", matchIfMissing = true)
+public class RedirectFastPathFilter implements Filter {
+    private static final String REDIRECT_PATH = "/mixed/url/";
+
+    private final UrlShortenerService urlShortenerService;
+    private final RedirectResponses redirectResponses;
+
+    @Override
+    public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest request = (HttpServletRequest) servletRequest;
+        String shortCode = anonymousRedirectCode(request);
+        if (shortCode == null) {
+            chain.doFilter(servletRequest, servletResponse);
+            return;
+        }
+
+        HttpServletResponse response = (HttpServletResponse) servletResponse;
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        try {
+            RedirectTarget redirect = urlShortenerService.getAnonymousRedirect(shortCode);
+            HttpHeaders headers = redirectResponses.headers(redirect);
+            if (redirectResponses.isNotModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), headers)) {
+                headers.remove(HttpHeaders.LOCATION);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            } else {
+                response.setStatus(redirectResponses.status(redirect).value());
+            }
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        } catch (NotFoundException e) {
+            log.debug("Not found: {}", e.getMessage());
+            // Same caching headers the security chain would have added
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, max-age=0, must-revalidate");
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType("text/plain;charset=UTF-8");
+            response.getOutputStream().write(e.getMessage().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String anonymousRedirectCode(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || request.getHeader(HttpHeaders.AUTHORIZATION) != null) {
+            return null;
+        }
+        String uri = request.getRequestURI();
+        int start = request.getContextPath().length();
+        if (!uri.startsWith(REDIRECT_PATH, start)) {
+            return null;
+        }
+        start += REDIRECT_PATH.length();
+        if (start == uri.length()) {
+            return null;
+        }
+        for (int i = start; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            // Leave encoded, matrix and nested paths to Spring MVC's decoding and mapping
+            if (c == '/' || c == '%' || c == ';') {
+                return null;
+            }
+        }
+        return uri.substring(start);
+    }
+}
@@ -0,0 +1,106 @@
+package com.urlshortener.url.controller;
+
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.common.helpers.UrlHash;
+import com.urlshortener.url.repository.RedirectTarget;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Status and headers of a redirect according to the link's {@link UrlEnums.RedirectPolicy}, shared by
+ * {@link UrlController} and {@link RedirectFastPathFilter}. TEMPORARY redirects are never cached. CACHEABLE ones
+ * may be kept until the link expires, at most {@code shortener.redirect.cache-max-age-seconds}, and PERMANENT ones
+ * are sent as 301 for {@code shortener.redirect.permanent-max-age-seconds}. Cacheable redirects carry an ETag of
+ * the target, so a revalidating client gets a 304 while the target is unchanged. Redirects of owned links are only
+ * cached privately, so shared caches do not serve them to other users.
+ */
+@Component
+public class RedirectResponses {
+    private static final String NO_CACHE = "no-cache, no-store, max-age=0, must-revalidate";
+
+    private final long cacheMaxAgeSeconds;
+    private final long permanentMaxAgeSeconds;
+
+    public RedirectResponses(@Value("${shortener.redirect.cache-max-age-seconds:3600}") long cacheMaxAgeSeconds,
+                             @Value("${shortener.redirect.permanent-max-age-seconds:31536000}") long permanentMaxAgeSeconds) {
+        this.cacheMaxAgeSeconds = cacheMaxAgeSeconds;
+        this.permanentMaxAgeSeconds = permanentMaxAgeSeconds;
+    }
+
+    // 301 rather than 308: only GET and HEAD are redirected, and 301 is understood by every client
+    public HttpStatus status(RedirectTarget redirect) {
+        return redirect.redirectPolicy() == UrlEnums.RedirectPolicy.PERMANENT ? HttpStatus.MOVED_PERMANENTLY : HttpStatus.FOUND;
+    }
+
+    public HttpHeaders headers(RedirectTarget redirect) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.LOCATION, toLocation(redirect.originalUrl()));
+        long maxAge = maxAgeSeconds(redirect);
+        if (maxAge <= 0) {
+            headers.set(HttpHeaders.CACHE_CONTROL, NO_CACHE);
+            return headers;
+        }
+        StringBuilder cacheControl = new StringBuilder(redirect.userId() != null ? "private" : "public")
+                .append(", max-age=").append(maxAge);
+        if (redirect.redirectPolicy() == UrlEnums.RedirectPolicy.PERMANENT) {
+            cacheControl.append(", immutable");
+        }
+        headers.set(HttpHeaders.CACHE_CONTROL, cacheControl.toString());
+        headers.set(HttpHeaders.ETAG, etag(redirect));
+        if (redirect.userId() != null) {
+            headers.set(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION);
+        }
+        return headers;
+    }
+
+    /**
+     * Whether an {@code If-None-Match} request header matches the ETag in {@code headers}, so the redirect can be
+     * answered with 304 without a body or {@code Location}.
+     */
+    public boolean isNotModified(String ifNoneMatch, HttpHeaders headers) {
+        String etag = headers.getETag();
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long maxAgeSeconds(RedirectTarget redirect) {
+        return switch (redirect.redirectPolicy()) {
+            case TEMPORARY -> 0;
+            case PERMANENT -> permanentMaxAgeSeconds;
+            case CACHEABLE -> redirect.expiresAt() == null ? cacheMaxAgeSeconds
+                    : Math.min(cacheMaxAgeSeconds, Duration.between(LocalDateTime.now(), redirect.expiresAt()).toSeconds());
+        };
+    }
+
+    // Changes with the target and the policy, the only parts of the response a cache keeps
+    private static String etag(RedirectTarget redirect) {
+        return "\"" + Long.toHexString(UrlHash.of(redirect.redirectPolicy() + " " + redirect.originalUrl())) + "\"";
+    }
+
+    // Matches ResponseEntity.location(URI.create(url)), which sends the ASCII form
+    private static String toLocation(String originalUrl) {
+        for (int i = 0; i < originalUrl.length(); i++) {
+            if (originalUrl.charAt(i) > 0x7F) {
+                return URI.create(originalUrl).toASCIIString();
+            }
+        }
+        return originalUrl;
+    }
+}
@@ -1,30 +1,51 @@
 package com.urlshortener.url.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.url.dto.BulkShortenResultDto;
+import com.urlshortener.url.dto.ImportProgressDto;
 import com.urlshortener.url.dto.ShortUrlResponseDto;
 import com.urlshortener.url.dto.ShortenUrlRequestDto;
+import com.urlshortener.url.repository.RedirectTarget;
 import com.urlshortener.url.service.UrlShortenerService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.net.URI;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 @RestController
 @Tag(name = "URL Shortener API", description = "Operations for shortening and managing URLs")
 @RequestMapping("/mixed/url")
 public class UrlController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private UrlShortenerService urlShortenerService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RedirectResponses redirectResponses;
+
     @PostMapping("/shorten")
     @Operation(summary = "Create a shortened URL", description = "Creates a new shortened URL from the provided original URL, ttl, customId")
     @ApiResponses(value = {
@@ -34,19 +55,66 @@ public class UrlController {
             @ApiResponse(responseCode = "400", description = "Blank body", content = @Content)
     })
     public ResponseEntity<ShortUrlResponseDto> createShortUrl(@Valid @RequestBody ShortenUrlRequestDto shortenUrlRequest) {
-        ShortUrlResponseDto shortenedUrl = urlShortenerService.createShortenedUrl(shortenUrlRequest.getOriginalUrl(), shortenUrlRequest.getCustomId(), shortenUrlRequest.getTtl());
+        ShortUrlResponseDto shortenedUrl = urlShortenerService.createShortenedUrl(shortenUrlRequest.getOriginalUrl(), shortenUrlRequest.getCustomId(),
+                shortenUrlRequest.getTtl(), shortenUrlRequest.getRedirectPolicy());
         return ResponseEntity.status(HttpStatus.CREATED).body(shortenedUrl);
     }
 
+    @PostMapping("/shorten/bulk")
+    @Operation(summary = "Create shortened URLs in bulk", description = "Creates shortened URLs for a list of original URLs, ttl, customId and reports the outcome per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = { @Content(array = @ArraySchema(schema = @Schema(implementation = BulkShortenResultDto.class)), mediaType = "application/json") }),
+            @ApiResponse(responseCode = "400", description = "Too many URLs", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Blank body", content = @Content)
+    })
+    public ResponseEntity<List<BulkShortenResultDto>> createShortUrls(@RequestBody List<ShortenUrlRequestDto> shortenUrlRequests) {
+        List<BulkShortenResultDto> results = urlShortenerService.createShortenedUrls(shortenUrlRequests);
+        return ResponseEntity.status(HttpStatus.OK).body(results);
+    }
+
+    @PostMapping(value = "/import", consumes = { NDJSON, "text/csv" }, produces = NDJSON)
+    @Operation(summary = "Import URLs from NDJSON or CSV", description = "Streams the request body in chunks (one JSON request object per line, or originalUrl,customId,ttl,redirectPolicy rows) and writes one progress line per chunk")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", content = { @Content(schema = @Schema(implementation = ImportProgressDto.class), mediaType = NDJSON) }),
+            @ApiResponse(responseCode = "415", description = "Unsupported content type", content = @Content)
+    })
+    public void importShortUrls(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UrlEnums.ImportFormat format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UrlEnums.ImportFormat.CSV : UrlEnums.ImportFormat.NDJSON;
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        ImportProgressDto summary = urlShortenerService.importShortenedUrls(request.getReader(), format, progress -> writeLine(out, progress));
+        writeLine(out, summary);
+    }
+
+    private void writeLine(OutputStream out, ImportProgressDto progress) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(progress));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Redirect to original URL", description = "Redirects to the original URL associated with the given id")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Redirect to original URL", content = @Content),
+            @ApiResponse(responseCode = "302", description = "Redirect to original URL", content = @Content),
+            @ApiResponse(responseCode = "301", description = "Permanent redirect to original URL", content = @Content),
+            @ApiResponse(responseCode = "304", description = "Cached redirect is still valid", content = @Content),
             @ApiResponse(responseCode = "404", description = "Short URL not found or expired", content = @Content)
     })
-    public ResponseEntity<Void> redirectToOriginalUrl(@PathVariable("id") String shortCode) {
-        String originalUrl = urlShortenerService.getOriginalUrl(shortCode);
-        return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(originalUrl)).build();
+    public ResponseEntity<Void> redirectToOriginalUrl(@PathVariable("id") String shortCode,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        RedirectTarget redirect = urlShortenerService.getRedirect(shortCode);
+        HttpHeaders headers = redirectResponses.headers(redirect);
+        if (redirectResponses.isNotModified(ifNoneMatch, headers)) {
+            headers.remove(HttpHeaders.LOCATION);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        return ResponseEntity.status(redirectResponses.status(redirect)).headers(headers).build();
     }
 
     @DeleteMapping("/{id}")
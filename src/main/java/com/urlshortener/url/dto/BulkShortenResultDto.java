@@ -0,0 +1,35 @@
+package com.urlshortener.url.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+@Schema(description = "Result of one item of a bulk shorten request")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkShortenResultDto implements Serializable {
+    public enum Status {
+        CREATED,
+        EXISTING,
+        CONFLICT,
+        INVALID
+    }
+
+    @Schema(description = "Position of the item in the request", requiredMode = Schema.RequiredMode.REQUIRED)
+    private int index;
+
+    @Schema(description = "Outcome for the item", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Status status;
+
+    @Schema(description = "Shortened URL, when created or already existing", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    private ShortUrlResponseDto shortUrl;
+
+    @Schema(description = "Error message, when conflicting or invalid", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    private String error;
+}
@@ -0,0 +1,38 @@
+package com.urlshortener.url.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Schema(description = "Progress line of a streaming import, written after every chunk")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportProgressDto implements Serializable {
+    @Schema(description = "Rows read so far", requiredMode = Schema.RequiredMode.REQUIRED)
+    private long processed;
+
+    @Schema(description = "Rows stored as new short URLs so far", requiredMode = Schema.RequiredMode.REQUIRED)
+    private long created;
+
+    @Schema(description = "Rows whose original URL was already shortened so far", requiredMode = Schema.RequiredMode.REQUIRED)
+    private long existing;
+
+    @Schema(description = "Rows rejected so far", requiredMode = Schema.RequiredMode.REQUIRED)
+    private long failed;
+
+    @Schema(description = "Rejected rows of the last chunk, indexed by their line number in the input, starting at 1 and counting the header and blank lines", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<BulkShortenResultDto> errors;
+
+    @Schema(description = "Why the last chunk could not be stored; the import stops there and the summary keeps done false", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    private String error;
+
+    @Schema(description = "True on the last line, once the whole input is processed", requiredMode = Schema.RequiredMode.REQUIRED)
+    private boolean done;
+}
@@ -1,6 +1,7 @@
 package com.urlshortener.url.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.urlshortener.common.enums.UrlEnums;
 import com.urlshortener.url.models.ShortenedUrl;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
@@ -26,10 +27,15 @@ public class ShortUrlResponseDto implements Serializable {
     @Schema(description = "Clicks", requiredMode = Schema.RequiredMode.NOT_REQUIRED, defaultValue = "0")
     private Long clicks;
 
+    @Schema(description = "Redirect policy", requiredMode = Schema.RequiredMode.REQUIRED, defaultValue = "TEMPORARY")
+    private UrlEnums.RedirectPolicy redirectPolicy;
+
     public ShortUrlResponseDto(@NonNull ShortenedUrl shortenedUrl) {
         this.shortCode = shortenedUrl.getShortCode();
         this.originalUrl = shortenedUrl.getOriginalUrl();
         this.expiresAt = shortenedUrl.getExpiresAt();
         this.clicks = shortenedUrl.getClicks();
+        this.redirectPolicy = shortenedUrl.getRedirectPolicy() != null
+                ? shortenedUrl.getRedirectPolicy() : UrlEnums.RedirectPolicy.TEMPORARY;
     }
 }
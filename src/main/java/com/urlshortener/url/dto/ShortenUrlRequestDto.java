@@ -1,5 +1,7 @@
 package com.urlshortener.url.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.urlshortener.common.enums.UrlEnums;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.Builder;
@@ -25,5 +27,17 @@ public class ShortenUrlRequestDto implements Serializable {
     @Schema(description = "Time-to-live in seconds", example = "200", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
     @Min(value = 1, message = "TTL must be greater than zero")
     private Long ttl;
+
+    @Schema(description = "How browsers and proxies may cache the redirect: TEMPORARY (302, never cached, every click counted), "
+            + "CACHEABLE (302, cached until the link expires) or PERMANENT (301, only for links without ttl). Cached redirects are not counted as clicks",
+            example = "TEMPORARY", defaultValue = "TEMPORARY", requiredMode = Schema.RequiredMode.NOT_REQUIRED)
+    private UrlEnums.RedirectPolicy redirectPolicy;
+
+    // Browsers keep a 301 until their cache is cleared, long after the link would have expired
+    @JsonIgnore
+    @AssertTrue(message = "PERMANENT redirects cannot have a TTL")
+    public boolean isRedirectPolicyValid() {
+        return redirectPolicy != UrlEnums.RedirectPolicy.PERMANENT || ttl == null;
+    }
 }
 
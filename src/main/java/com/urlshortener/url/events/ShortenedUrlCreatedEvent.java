@@ -0,0 +1,10 @@
+package com.urlshortener.url.events;
+
+import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.repository.RedirectTarget;
+
+public record ShortenedUrlCreatedEvent(String shortCode, RedirectTarget redirect) {
+    public static ShortenedUrlCreatedEvent of(ShortenedUrl shortenedUrl) {
+        return new ShortenedUrlCreatedEvent(shortenedUrl.getShortCode(), RedirectTarget.of(shortenedUrl));
+    }
+}
@@ -0,0 +1,4 @@
+package com.urlshortener.url.events;
+
+public record ShortenedUrlDeletedEvent(String shortCode) {
+}
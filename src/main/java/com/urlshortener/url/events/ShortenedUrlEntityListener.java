@@ -0,0 +1,28 @@
+package com.urlshortener.url.events;
+
+import com.urlshortener.url.models.ShortenedUrl;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes create and delete events for every persisted or removed short URL, whichever code path
+ * (service, repository or expiry job) performed the change.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShortenedUrlEntityListener {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @PostPersist
+    public void onCreated(ShortenedUrl shortenedUrl) {
+        applicationEventPublisher.publishEvent(ShortenedUrlCreatedEvent.of(shortenedUrl));
+    }
+
+    @PostRemove
+    public void onDeleted(ShortenedUrl shortenedUrl) {
+        applicationEventPublisher.publishEvent(new ShortenedUrlDeletedEvent(shortenedUrl.getShortCode()));
+    }
+}
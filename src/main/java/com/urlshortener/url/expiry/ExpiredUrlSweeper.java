@@ -0,0 +1,99 @@
+package com.urlshortener.url.expiry;
+
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired links left behind by the {@link UrlExpiryWheel} in chunks of {@code shortener.expiry.sweep.chunk-size},
+ * each in its own short transaction through the {@code idx_expires_at_short_code} index, pausing
+ * {@code pause-ms} between chunks so the sweep does not starve other writers. A sweep stops after
+ * {@code max-duration-seconds}; whatever is left is still expired and is picked up by the next sweep. Chunks are
+ * claimed with {@code SKIP LOCKED} on PostgreSQL, so sweeps on several nodes split the work. Each chunk publishes a
+ * deleted event per link once it commits.
+ */
+@Component
+@Slf4j
+public class ExpiredUrlSweeper {
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final long maxDurationSeconds;
+    private final Counter deleted;
+    private final Timer chunkTimer;
+    private final AtomicLong lastRate = new AtomicLong();
+
+    public ExpiredUrlSweeper(ShortenedUrlRepository shortenedUrlRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${shortener.expiry.sweep.chunk-size:1000}") int chunkSize,
+                             @Value("${shortener.expiry.sweep.pause-ms:50}") long pauseMs,
+                             @Value("${shortener.expiry.sweep.max-duration-seconds:600}") long maxDurationSeconds) {
+        this.shortenedUrlRepository = shortenedUrlRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.maxDurationSeconds = maxDurationSeconds;
+        this.deleted = Counter.builder("shortener.expiry.sweep.deleted")
+                .description("Expired short URLs deleted by the sweeper")
+                .register(meterRegistry);
+        this.chunkTimer = Timer.builder("shortener.expiry.sweep.chunk")
+                .description("Time to delete one chunk of expired short URLs")
+                .register(meterRegistry);
+        Gauge.builder("shortener.expiry.sweep.rate", lastRate, AtomicLong::get)
+                .description("Expired short URLs deleted per second by the last sweep")
+                .baseUnit("rows/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes links that expired before now, until none are left or the time budget runs out.
+     *
+     * @return number of rows deleted
+     */
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.SECONDS.toNanos(maxDurationSeconds);
+        int total = 0;
+        while (true) {
+            long chunkStarted = System.nanoTime();
+            List<String> chunk = transactionTemplate.execute(status -> shortenedUrlRepository.deleteExpiredChunk(now, chunkSize));
+            int chunkDeleted = chunk != null ? chunk.size() : 0;
+            chunkTimer.record(System.nanoTime() - chunkStarted, TimeUnit.NANOSECONDS);
+            deleted.increment(chunkDeleted);
+            total += chunkDeleted;
+            // A short chunk means nothing is left, or the rest is locked by another node's sweep
+            if (chunkDeleted < chunkSize) {
+                break;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                log.info("Expired URL sweep stopped after {} s, the next sweep continues", maxDurationSeconds);
+                break;
+            }
+            try {
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        lastRate.set(total * 1000L / elapsedMs);
+        log.info("Swept {} expired short URLs before {} in {} ms", total, now, elapsedMs);
+        return total;
+    }
+}
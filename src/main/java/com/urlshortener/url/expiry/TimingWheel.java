@@ -0,0 +1,127 @@
+package com.urlshortener.url.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of {@code levels} wheels with {@code wheelSize} slots each. A slot of level 0 spans one
+ * tick, a slot of level {@code n} spans {@code wheelSize^n} ticks. Items are placed on the lowest level whose range
+ * covers their deadline, and cascade one level down whenever the wheel below completes a revolution, so adding and
+ * expiring an item costs O(levels) whatever the number of items. Deadlines at or beyond {@link #horizonTicks()}
+ * are rejected. Not thread-safe.
+ */
+final class TimingWheel<T> {
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final List<Entry<T>>[][] slots;
+    // Items that were already due when added
+    private List<Entry<T>> due = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    private record Entry<T>(T item, long tick) {
+    }
+
+    /**
+     * @param wheelSize slots per level, a power of two
+     * @param startTick tick the wheel starts at, usually the current time divided by the tick length
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(int wheelSize, int levels, long startTick) {
+        if (wheelSize < 2 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        if (levels < 1 || (long) Integer.numberOfTrailingZeros(wheelSize) * levels > 62) {
+            throw new IllegalArgumentException("Invalid number of levels: " + levels);
+        }
+        this.bits = Integer.numberOfTrailingZeros(wheelSize);
+        this.mask = wheelSize - 1;
+        this.levels = levels;
+        this.slots = new List[levels][wheelSize];
+        this.currentTick = startTick;
+    }
+
+    long horizonTicks() {
+        return 1L << (bits * levels);
+    }
+
+    long currentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds an item expiring at {@code tick}, which may already have passed.
+     *
+     * @return whether the item was added, {@code false} when the tick is beyond the horizon
+     */
+    boolean add(T item, long tick) {
+        if (tick - currentTick >= horizonTicks()) {
+            return false;
+        }
+        place(new Entry<>(item, tick));
+        size++;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code tick}, passing every item whose tick is at or before it to {@code expired}.
+     */
+    void advance(long tick, Consumer<T> expired) {
+        drainDue(expired);
+        while (currentTick < tick) {
+            currentTick++;
+            // Cascade every level whose lower levels just completed a revolution, lowest first
+            for (int level = 1; level < levels && (currentTick & ((1L << (bits * level)) - 1)) == 0; level++) {
+                int slot = (int) (currentTick >>> (bits * level)) & mask;
+                List<Entry<T>> entries = slots[level][slot];
+                if (entries != null) {
+                    slots[level][slot] = null;
+                    entries.forEach(this::place);
+                }
+            }
+            int slot = (int) currentTick & mask;
+            List<Entry<T>> entries = slots[0][slot];
+            if (entries != null) {
+                slots[0][slot] = null;
+                size -= entries.size();
+                entries.forEach(entry -> expired.accept(entry.item()));
+            }
+            drainDue(expired);
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.tick() - currentTick;
+        if (delta <= 0) {
+            due.add(entry);
+            return;
+        }
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        int slot = (int) (entry.tick() >>> (bits * level)) & mask;
+        List<Entry<T>> entries = slots[level][slot];
+        if (entries == null) {
+            entries = new ArrayList<>();
+            slots[level][slot] = entries;
+        }
+        entries.add(entry);
+    }
+
+    private void drainDue(Consumer<T> expired) {
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> entries = due;
+        due = new ArrayList<>();
+        size -= entries.size();
+        entries.forEach(entry -> expired.accept(entry.item()));
+    }
+}
@@ -0,0 +1,252 @@
+package com.urlshortener.url.expiry;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.repository.ExpiringUrl;
+import com.urlshortener.url.repository.ShortUrlPartitions;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deletes expired links from an in-memory {@link TimingWheel} instead of one JobRunr job per link. Links expiring
+ * within {@code shortener.expiry.horizon-seconds} are held in the wheel: committed creates are added directly, and
+ * every {@code scan-interval-seconds} the next window of expiries is read from the {@code idx_expires_at_short_code}
+ * index, so links created further ahead or on other nodes are loaded once they come within the horizon. The first
+ * scan starts from the oldest expiry, which rebuilds the wheel after a restart and picks up links that expired while
+ * the node was down. Every {@code tick-ms} the codes that came due are deleted in batches of {@code batch-size};
+ * a batch that fails is put back and retried on the next tick. Each batch publishes a deleted event per link, so
+ * caches and other nodes drop the codes as for any other delete.
+ * <p>
+ * Every node runs its own wheel over the same window, so each expired link is deleted by whichever node gets there
+ * first and the others delete nothing. The half-hourly expired URL job remains as a safety net. The wheel is off
+ * while {@link ShortUrlPartitions} is active, since expired links are then dropped with their partition.
+ */
+@Component
+@Slf4j
+public class UrlExpiryWheel {
+    // Window start of the first scan, before any expiry that can be stored
+    private static final LocalDateTime OLDEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ShortenedUrlRepository shortenedUrlRepository;
+    private final BackgroundThreads backgroundThreads;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+    private final long horizonSeconds;
+    private final long scanIntervalSeconds;
+    private final int batchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter deleted;
+
+    private TimingWheel<String> wheel;
+    // Expiries before this were loaded by a scan or are left to the creating node
+    private LocalDateTime loadedUntil = OLDEST;
+    private ScheduledExecutorService ticker;
+
+    public UrlExpiryWheel(ShortenedUrlRepository shortenedUrlRepository,
+                          BackgroundThreads backgroundThreads,
+                          ShortUrlPartitions shortUrlPartitions,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shortener.expiry.enabled:true}") boolean enabled,
+                          @Value("${shortener.expiry.tick-ms:1000}") long tickMs,
+                          @Value("${shortener.expiry.wheel-size:64}") int wheelSize,
+                          @Value("${shortener.expiry.horizon-seconds:3600}") long horizonSeconds,
+                          @Value("${shortener.expiry.scan-interval-seconds:600}") long scanIntervalSeconds,
+                          @Value("${shortener.expiry.batch-size:500}") int batchSize) {
+        if (scanIntervalSeconds >= horizonSeconds) {
+            throw new IllegalArgumentException("shortener.expiry.scan-interval-seconds must be below horizon-seconds");
+        }
+        this.shortenedUrlRepository = shortenedUrlRepository;
+        this.backgroundThreads = backgroundThreads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled && !shortUrlPartitions.isActive();
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.horizonSeconds = horizonSeconds;
+        this.scanIntervalSeconds = scanIntervalSeconds;
+        this.batchSize = batchSize;
+        // Twice the horizon, so a scan still fits while the ticker lags behind
+        long ticksNeeded = 2 * TimeUnit.SECONDS.toMillis(horizonSeconds) / tickMs;
+        int levels = 1;
+        while (Math.pow(wheelSize, levels) < ticksNeeded) {
+            levels++;
+        }
+        this.levels = levels;
+        this.deleted = Counter.builder("shortener.expiry.deleted")
+                .description("Expired short URLs deleted by the expiry wheel")
+                .register(meterRegistry);
+        Gauge.builder("shortener.expiry.pending", this, UrlExpiryWheel::size)
+                .description("Short codes waiting in the expiry wheel")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        wheel = new TimingWheel<>(wheelSize, levels, Math.floorDiv(System.currentTimeMillis(), tickMs));
+        ticker = backgroundThreads.newSingleThreadScheduledExecutor("url-expiry-wheel");
+        // Scans and ticks share the thread, so the first scan finishes before anything is deleted
+        ticker.scheduleWithFixedDelay(this::scanQuietly, 0, scanIntervalSeconds, TimeUnit.SECONDS);
+        ticker.scheduleWithFixedDelay(this::expireQuietly, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Expiry wheel started with {} levels of {} slots of {} ms", levels, wheelSize, tickMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return wheel != null ? wheel.size() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCreated(ShortenedUrlCreatedEvent event) {
+        LocalDateTime expiresAt = event.redirect().expiresAt();
+        if (!enabled || expiresAt == null || !expiresAt.isBefore(LocalDateTime.now().plusSeconds(horizonSeconds))) {
+            return;
+        }
+        lock.lock();
+        try {
+            wheel.add(event.shortCode(), tickOf(expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Loads the links expiring between the end of the last scan and the horizon into the wheel.
+     *
+     * @return number of links loaded
+     */
+    int scan() {
+        LocalDateTime until = LocalDateTime.now().plusSeconds(horizonSeconds);
+        LocalDateTime afterExpiresAt = loadedUntil;
+        String afterShortCode = "";
+        int loaded = 0;
+        while (true) {
+            List<ExpiringUrl> page = shortenedUrlRepository.findExpiringAfter(afterExpiresAt, afterShortCode, until, Limit.of(batchSize));
+            lock.lock();
+            try {
+                for (ExpiringUrl url : page) {
+                    if (!wheel.add(url.shortCode(), tickOf(url.expiresAt()))) {
+                        // The ticker fell behind by more than a horizon, continue from here on the next scan
+                        loadedUntil = url.expiresAt();
+                        return loaded;
+                    }
+                    loaded++;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (page.size() < batchSize) {
+                loadedUntil = until;
+                return loaded;
+            }
+            ExpiringUrl last = page.get(page.size() - 1);
+            afterExpiresAt = last.expiresAt();
+            afterShortCode = last.shortCode();
+        }
+    }
+
+    /**
+     * Deletes the links whose expiry has passed.
+     *
+     * @return number of rows deleted
+     */
+    public int expire() {
+        List<String> due = new ArrayList<>();
+        lock.lock();
+        try {
+            wheel.advance(Math.floorDiv(System.currentTimeMillis(), tickMs), due::add);
+        } finally {
+            lock.unlock();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int deletedCount = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<String> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            int batchDeleted;
+            try {
+                List<String> deletedCodes = transactionTemplate.execute(status -> shortenedUrlRepository.deleteExpiredByShortCodes(batch, now));
+                batchDeleted = deletedCodes != null ? deletedCodes.size() : 0;
+            } catch (RuntimeException e) {
+                requeue(due.subList(from, due.size()));
+                throw e;
+            }
+            deletedCount += batchDeleted;
+            deleted.increment(batchDeleted);
+        }
+        if (deletedCount > 0) {
+            log.info("Deleted {} expired short URLs", deletedCount);
+        }
+        return deletedCount;
+    }
+
+    private void requeue(List<String> shortCodes) {
+        lock.lock();
+        try {
+            shortCodes.forEach(shortCode -> wheel.add(shortCode, wheel.currentTick()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scanQuietly() {
+        try {
+            int loaded = scan();
+            log.debug("Loaded {} expiring short URLs into the expiry wheel", loaded);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load expiring short URLs, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void expireQuietly() {
+        try {
+            expire();
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete expired short URLs, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Rounded up, so a link is never deleted before its expiry
+    private long tickOf(LocalDateTime expiresAt) {
+        long millis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Math.floorDiv(millis + tickMs - 1, tickMs);
+    }
+}
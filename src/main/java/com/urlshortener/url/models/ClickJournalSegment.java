@@ -0,0 +1,34 @@
+package com.urlshortener.url.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Click journal segment whose records up to {@code appliedEpoch} are already folded into {@code short_urls.clicks},
+ * so records left behind by a crash are not replayed twice.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "click_journal_segments")
+public class ClickJournalSegment {
+    @Id
+    @Column(length = 36)
+    private String segmentId;
+
+    @Column(nullable = false)
+    private long appliedEpoch;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+}
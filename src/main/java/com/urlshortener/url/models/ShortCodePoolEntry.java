@@ -0,0 +1,25 @@
+package com.urlshortener.url.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Pre-generated short code that is not used by any short URL yet.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "short_code_pool")
+public class ShortCodePoolEntry {
+    @Id
+    @Column(length = ShortenedUrl.MAX_SHORT_CODE_LENGTH)
+    private String shortCode;
+}
@@ -0,0 +1,42 @@
+package com.urlshortener.url.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only log of deleted short codes. Ids only grow, so a node's short code index remembers the last id it
+ * applied and catches up on deletions made by other nodes, or while it was down.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "short_url_deletions", indexes = {@Index(name = "idx_deleted_at", columnList = "deletedAt")})
+public class ShortUrlDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String shortCode;
+
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+
+    public ShortUrlDeletion(String shortCode, LocalDateTime deletedAt) {
+        this.shortCode = shortCode;
+        this.deletedAt = deletedAt;
+    }
+}
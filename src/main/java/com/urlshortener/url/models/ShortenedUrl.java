@@ -4,9 +4,11 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 import com.urlshortener.auth.model.User;
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.common.helpers.UrlHash;
 import com.urlshortener.common.models.BaseEntity;
+import com.urlshortener.url.events.ShortenedUrlEntityListener;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -14,22 +16,48 @@ import lombok.Setter;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
-@Table(name = "short_urls", indexes = {@Index(name = "idx_short_and_original_url", columnList = "shortCode, originalUrl")})
+@EntityListeners(ShortenedUrlEntityListener.class)
+@Table(name = "short_urls", indexes = {
+        @Index(name = "idx_user_url_hash", columnList = "user_id, urlHash"),
+        @Index(name = "idx_clicks_short_code", columnList = "clicks desc, shortCode"),
+        @Index(name = "idx_expires_at_short_code", columnList = "expiresAt, shortCode")})
 public class ShortenedUrl extends BaseEntity {
-    @Column(unique = true, nullable = false, length = 6)
+    public static final int MAX_SHORT_CODE_LENGTH = 16;
+
+    @Column(unique = true, nullable = false, length = MAX_SHORT_CODE_LENGTH)
     private String shortCode;
 
     @Column(nullable = false)
     private String originalUrl;
 
+    @Column(nullable = false)
+    private Long urlHash;
+
     private LocalDateTime expiresAt;
 
     private Long clicks;
 
+    // Null for links created before redirect policies, which behave as TEMPORARY
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private UrlEnums.RedirectPolicy redirectPolicy;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
-}
 
+    public ShortenedUrl(String shortCode, String originalUrl, LocalDateTime expiresAt, Long clicks, User user) {
+        this.shortCode = shortCode;
+        this.originalUrl = originalUrl;
+        this.urlHash = UrlHash.of(originalUrl);
+        this.expiresAt = expiresAt;
+        this.clicks = clicks;
+        this.user = user;
+    }
+
+    public void setOriginalUrl(String originalUrl) {
+        this.originalUrl = originalUrl;
+        this.urlHash = UrlHash.of(originalUrl);
+    }
+}
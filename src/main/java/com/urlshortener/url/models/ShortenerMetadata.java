@@ -0,0 +1,29 @@
+package com.urlshortener.url.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Named values shared by all nodes, such as the id that tells node-local files which database they belong to.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "shortener_metadata")
+public class ShortenerMetadata {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // VALUE is a reserved word in H2
+    @Column(name = "metadata_value", nullable = false)
+    private String value;
+}
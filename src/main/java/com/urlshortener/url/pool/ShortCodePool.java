@@ -0,0 +1,224 @@
+package com.urlshortener.url.pool;
+
+import com.urlshortener.config.util.ShortCodeGenerator;
+import com.urlshortener.url.repository.ShortCodePoolRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jobrunr.jobs.annotations.Job;
+import org.jobrunr.scheduling.JobScheduler;
+import org.jobrunr.scheduling.cron.Cron;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of pre-generated short codes, so creating a short URL does not wait on code generation.
+ * A JobRunr recurring job tops up the {@code short_code_pool} table whenever it drops below the low watermark;
+ * each node claims codes from it in batches with {@code FOR UPDATE SKIP LOCKED} into a local buffer. A claim commits
+ * in its own transaction before any code is handed out, so a create that rolls back does not put its claimed codes
+ * back into the table while they are still buffered. Refills are serialized across nodes with an advisory lock on
+ * PostgreSQL and count the pool again under it, so nodes running dry together do not overshoot the target size.
+ * When the pool is disabled or empty, codes come straight from the {@link ShortCodeGenerator}.
+ * <p>
+ * Discarding a code only reaches this node's buffer and the table, so a code buffered by another node can still be
+ * taken as a custom ID; callers insert pooled codes with a conflict check and take the next code on conflict.
+ * Codes already in the table are skipped when refilling or returning codes, so nodes refilling together do not fail.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShortCodePool {
+    private static final String INSERT_SQL = "INSERT INTO short_code_pool (short_code) VALUES (?) ON CONFLICT DO NOTHING";
+    private static final String INSERT_IGNORE_SQL = "INSERT IGNORE INTO short_code_pool (short_code) VALUES (?)";
+    // Key of the advisory lock serializing refills across nodes
+    private static final long REFILL_LOCK_KEY = 0x73686F72745F706FL;
+
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShortCodePoolRepository shortCodePoolRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final PlatformTransactionManager transactionManager;
+    private final JobScheduler jobScheduler;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentLinkedQueue<String> localCodes = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock claimLock = new ReentrantLock();
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private final AtomicLong poolDepth = new AtomicLong();
+
+    @Value("${shortener.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${shortener.pool.low-watermark:10000}")
+    private int lowWatermark;
+
+    @Value("${shortener.pool.target-size:50000}")
+    private int targetSize;
+
+    @Value("${shortener.pool.claim-batch-size:100}")
+    private int claimBatchSize;
+
+    private Counter fallbacks;
+
+    @PostConstruct
+    public void scheduleRecurrently() {
+        Gauge.builder("shortener.pool.depth", poolDepth, AtomicLong::get)
+                .description("Codes in the short_code_pool table at the last refill check")
+                .register(meterRegistry);
+        Gauge.builder("shortener.pool.local", localCodes, ConcurrentLinkedQueue::size)
+                .description("Codes claimed by this node and not used yet")
+                .register(meterRegistry);
+        fallbacks = Counter.builder("shortener.pool.fallbacks")
+                .description("Codes generated on the request path because the pool was empty")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Registering Refill short code pool job for every minute");
+            jobScheduler.scheduleRecurrently(Cron.minutely(), this::refill);
+        }
+    }
+
+    /**
+     * Returns an unused short code, preferring pre-generated ones.
+     */
+    public String nextShortCode() {
+        if (!enabled) {
+            return shortCodeGenerator.generateShortCode();
+        }
+        String shortCode = localCodes.poll();
+        if (shortCode == null) {
+            claimBatch();
+            shortCode = localCodes.poll();
+        }
+        if (shortCode == null) {
+            fallbacks.increment();
+            return shortCodeGenerator.generateShortCode();
+        }
+        return shortCode;
+    }
+
+    /**
+     * Removes a code that was taken by a custom ID, so it is never handed out again.
+     */
+    public void discard(String shortCode) {
+        if (enabled && !localCodes.remove(shortCode)) {
+            shortCodePoolRepository.deleteById(shortCode);
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #discard(String)} using a single delete.
+     */
+    public void discardAll(Collection<String> shortCodes) {
+        if (enabled && !shortCodes.isEmpty()) {
+            localCodes.removeAll(shortCodes);
+            shortCodePoolRepository.deleteAllByIdInBatch(shortCodes);
+        }
+    }
+
+    @Job(name = "Refill short code pool")
+    public void refill() {
+        refillLock.lock();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (isPostgreSql()) {
+                    jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", REFILL_LOCK_KEY);
+                }
+                // Counted under the lock, so a refill that waited sees the codes the previous one added
+                long depth = shortCodePoolRepository.count();
+                poolDepth.set(depth);
+                if (depth >= lowWatermark) {
+                    return;
+                }
+                int missing = (int) (targetSize - depth);
+                long inserted = 0;
+                List<Object[]> batch = new ArrayList<>(claimBatchSize);
+                for (int i = 0; i < missing; i++) {
+                    batch.add(new Object[]{shortCodeGenerator.generateShortCode()});
+                    if (batch.size() == claimBatchSize || i == missing - 1) {
+                        inserted += insertedRows(jdbcTemplate.batchUpdate(insertSql(), batch));
+                        batch.clear();
+                    }
+                }
+                poolDepth.set(depth + inserted);
+                log.info("Job - refilled short code pool from {} to {} codes", depth, depth + inserted);
+            });
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private void claimBatch() {
+        claimLock.lock();
+        try {
+            if (!localCodes.isEmpty()) {
+                return;
+            }
+            // Commits on its own, so the claimed rows are neither locked for nor restored by the caller's transaction
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            List<String> claimed = transaction.execute(status -> {
+                List<String> shortCodes = shortCodePoolRepository.lockBatch(claimBatchSize);
+                shortCodePoolRepository.deleteAllByIdInBatch(shortCodes);
+                return shortCodes;
+            });
+            localCodes.addAll(claimed);
+            poolDepth.addAndGet(-claimed.size());
+            if (claimed.size() < claimBatchSize) {
+                log.warn("Short code pool is running dry, claimed {} of {} codes", claimed.size(), claimBatchSize);
+                jobScheduler.enqueue(this::refill);
+            }
+        } finally {
+            claimLock.unlock();
+        }
+    }
+
+    // The H2 test database runs in MySQL mode, which has no ON CONFLICT
+    private String insertSql() {
+        return isPostgreSql() ? INSERT_SQL : INSERT_IGNORE_SQL;
+    }
+
+    private boolean isPostgreSql() {
+        String url = dataSourceProperties.determineUrl();
+        return url != null && url.startsWith("jdbc:postgresql:");
+    }
+
+    // Codes already in the table report 0; drivers that cannot tell report SUCCESS_NO_INFO, counted as inserted
+    private static long insertedRows(int[] updateCounts) {
+        long inserted = 0;
+        for (int count : updateCounts) {
+            if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    @PreDestroy
+    public void returnUnusedCodes() {
+        List<Object[]> unused = new ArrayList<>();
+        for (String shortCode = localCodes.poll(); shortCode != null; shortCode = localCodes.poll()) {
+            unused.add(new Object[]{shortCode});
+        }
+        if (!unused.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql(), unused);
+            log.info("Returned {} unused short codes to the pool", unused.size());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.urlshortener.url.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Short code and expiry of a link, in {@code idx_expires_at_short_code} order, for the expiry wheel.
+ */
+public record ExpiringUrl(String shortCode, LocalDateTime expiresAt) {
+}
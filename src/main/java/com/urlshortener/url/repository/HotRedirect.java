@@ -0,0 +1,16 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.common.enums.UrlEnums;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Redirect columns of a link together with its key in the most-clicked ordering, for cache warm-up.
+ */
+public record HotRedirect(String shortCode, Long clicks, String originalUrl, LocalDateTime expiresAt, UUID userId,
+                          UrlEnums.RedirectPolicy redirectPolicy) {
+    public RedirectTarget redirect() {
+        return new RedirectTarget(originalUrl, expiresAt, userId, redirectPolicy);
+    }
+}
@@ -0,0 +1,28 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.url.models.ShortenedUrl;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only projection of the columns a redirect needs, loaded without creating a managed entity.
+ */
+public record RedirectTarget(String originalUrl, LocalDateTime expiresAt, UUID userId,
+                             UrlEnums.RedirectPolicy redirectPolicy) {
+    public RedirectTarget {
+        if (redirectPolicy == null) {
+            redirectPolicy = UrlEnums.RedirectPolicy.TEMPORARY;
+        }
+    }
+
+    public static RedirectTarget of(ShortenedUrl shortenedUrl) {
+        return new RedirectTarget(shortenedUrl.getOriginalUrl(), shortenedUrl.getExpiresAt(),
+                shortenedUrl.getUser() != null ? shortenedUrl.getUser().getId() : null, shortenedUrl.getRedirectPolicy());
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(LocalDateTime.now());
+    }
+}
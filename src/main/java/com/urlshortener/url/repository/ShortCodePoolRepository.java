@@ -0,0 +1,18 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.models.ShortCodePoolEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+import java.util.stream.Stream;
+
+@Repository
+public interface ShortCodePoolRepository extends JpaRepository<ShortCodePoolEntry, String> {
+
+    @Query(value = "SELECT short_code FROM short_code_pool LIMIT :batchSize FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockBatch(int batchSize);
+
+    @Query("select p.shortCode from ShortCodePoolEntry p")
+    Stream<String> streamAllShortCodes();
+}
@@ -0,0 +1,29 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.models.ShortUrlDeletion;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ShortUrlDeletionRepository extends JpaRepository<ShortUrlDeletion, Long> {
+
+    List<ShortUrlDeletion> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select min(d.id) from ShortUrlDeletion d")
+    Long findMinId();
+
+    @Query("select max(d.id) from ShortUrlDeletion d")
+    Long findMaxId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from ShortUrlDeletion d where d.deletedAt < :before and d.id < :idBelow")
+    int deleteAllByDeletedAtBeforeAndIdLessThan(LocalDateTime before, Long idBelow);
+}
@@ -0,0 +1,216 @@
+package com.urlshortener.url.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Experimental PostgreSQL layout of {@code short_urls} as a table range-partitioned on {@code expires_at}, enabled with
+ * {@code shortener.partitioning.enabled}. Links without expiry live in the default partition
+ * {@code short_urls_permanent}, TTL links in one partition per expiry day, {@code short_urls_pYYYYMMDD}, and links
+ * expiring after the last daily partition in {@code short_urls_overflow}. Queries keep addressing
+ * {@code short_urls}, so repository lookups do not change. Expiry drops a whole day once all of its links have
+ * expired, instead of deleting rows one by one.
+ * <p>
+ * At startup the table Hibernate created is converted in place: it becomes the default partition, and its TTL rows
+ * are moved into daily partitions. {@link #maintain()} keeps {@code shortener.partitioning.days-ahead} daily
+ * partitions ready, moving links out of the overflow as their day comes within range, and drops expired days.
+ * Both take an advisory lock, so nodes starting or maintaining together do not race. A partitioned table cannot
+ * have a unique index without the partition key, so each partition enforces unique short codes and ids on its own;
+ * every insert locks its codes with {@code lockShortCodes} and checks them across partitions before inserting.
+ */
+@Component
+@Slf4j
+// Converts the table Hibernate creates, so it has to run after the schema export
+@DependsOn("entityManagerFactory")
+public class ShortUrlPartitions {
+    private static final String TABLE = "short_urls";
+    private static final String PERMANENT = "short_urls_permanent";
+    private static final String OVERFLOW = "short_urls_overflow";
+    private static final String OVERFLOW_BOUND = "short_urls_overflow_bound";
+    private static final Pattern DAILY = Pattern.compile("short_urls_p(\\d{8})");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    // Key of the advisory lock serializing conversion and maintenance across nodes
+    private static final long LOCK_KEY = 0x73686F72745F7075L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean active;
+    private final int daysAhead;
+
+    public ShortUrlPartitions(JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              DataSourceProperties dataSourceProperties,
+                              @Value("${shortener.partitioning.enabled:false}") boolean enabled,
+                              @Value("${shortener.partitioning.days-ahead:30}") int daysAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.daysAhead = daysAhead;
+        boolean postgreSql = dataSourceProperties.determineUrl() != null
+                && dataSourceProperties.determineUrl().startsWith("jdbc:postgresql:");
+        if (enabled && !postgreSql) {
+            log.warn("shortener.partitioning.enabled is only supported on PostgreSQL, keeping a plain short_urls table");
+        }
+        this.active = enabled && postgreSql;
+    }
+
+    /**
+     * Whether TTL links are stored in daily partitions and expire by dropping them.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!active) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (!isPartitioned()) {
+                convert();
+            }
+        });
+        maintain();
+    }
+
+    /**
+     * Creates the daily partitions up to {@code days-ahead} and drops the days whose links have all expired.
+     *
+     * @return number of partitions dropped
+     */
+    public int maintain() {
+        if (!active) {
+            return 0;
+        }
+        return transactionTemplate.execute(status -> {
+            lock();
+            LocalDate today = LocalDate.now();
+            TreeSet<LocalDate> days = dailyPartitions();
+            LocalDate last = days.isEmpty() ? today : days.last();
+            LocalDate target = today.plusDays(daysAhead);
+            if (last.isBefore(target)) {
+                extend(last.plusDays(1), target);
+            }
+            int dropped = 0;
+            for (LocalDate day : days.headSet(today)) {
+                String partition = partitionName(day);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                dropped++;
+            }
+            if (dropped > 0) {
+                log.info("Dropped {} expired short URL partitions before {}", dropped, today);
+            }
+            return dropped;
+        });
+    }
+
+    private void convert() {
+        LocalDate today = LocalDate.now();
+        LocalDate target = today.plusDays(daysAhead);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + PERMANENT);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE " + PERMANENT + " INCLUDING DEFAULTS) PARTITION BY RANGE (expires_at)");
+        // Matching indexes and the foreign key of the permanent table are attached to these rather than duplicated
+        jdbcTemplate.execute("CREATE INDEX idx_user_url_hash_part ON " + TABLE + " (user_id, url_hash)");
+        jdbcTemplate.execute("CREATE INDEX idx_clicks_short_code_part ON " + TABLE + " (clicks DESC, short_code)");
+        jdbcTemplate.execute("CREATE INDEX idx_expires_at_short_code_part ON " + TABLE + " (expires_at, short_code)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD FOREIGN KEY (user_id) REFERENCES users (id)");
+
+        // Today's partition also takes anything older, so every existing expiry has a partition
+        createPartition(today, "MINVALUE");
+        for (LocalDate day = today.plusDays(1); !day.isAfter(target); day = day.plusDays(1)) {
+            createPartition(day, null);
+        }
+        createOverflow(target.plusDays(1));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + OVERFLOW
+                + " FOR VALUES FROM ('" + target.plusDays(1) + "') TO (MAXVALUE)");
+
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + PERMANENT + " WHERE expires_at IS NOT NULL");
+        jdbcTemplate.update("DELETE FROM " + PERMANENT + " WHERE expires_at IS NOT NULL");
+        // Proves the default partition holds no expiries, so adding partitions later does not scan it
+        jdbcTemplate.execute("ALTER TABLE " + PERMANENT + " ADD CONSTRAINT short_urls_permanent_no_expiry CHECK (expires_at IS NULL)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + PERMANENT + " DEFAULT");
+        log.info("Partitioned short_urls by expiry day up to {}, moved {} TTL links", target, moved);
+    }
+
+    // Splits the days from..to off the overflow, moving the links that expire on them
+    private void extend(LocalDate from, LocalDate to) {
+        LocalDate overflowStart = to.plusDays(1);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + OVERFLOW);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            createPartition(day, null);
+        }
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " SELECT * FROM " + OVERFLOW
+                + " WHERE expires_at < '" + overflowStart + "'");
+        jdbcTemplate.update("DELETE FROM " + OVERFLOW + " WHERE expires_at < '" + overflowStart + "'");
+        jdbcTemplate.execute("ALTER TABLE " + OVERFLOW + " DROP CONSTRAINT " + OVERFLOW_BOUND);
+        jdbcTemplate.execute("ALTER TABLE " + OVERFLOW + " ADD CONSTRAINT " + OVERFLOW_BOUND
+                + " CHECK (expires_at >= '" + overflowStart + "')");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + OVERFLOW
+                + " FOR VALUES FROM ('" + overflowStart + "') TO (MAXVALUE)");
+        log.info("Created short URL partitions from {} to {}, moved {} links out of the overflow", from, to, moved);
+    }
+
+    private void createPartition(LocalDate day, String lowerBound) {
+        String partition = partitionName(day);
+        String from = lowerBound != null ? lowerBound : "'" + day + "'";
+        jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM (" + from + ") TO ('" + day.plusDays(1) + "')");
+        addKeys(partition);
+    }
+
+    // Created detached, so it can be attached with a bound proven by its check constraint
+    private void createOverflow(LocalDate start) {
+        jdbcTemplate.execute("CREATE TABLE " + OVERFLOW + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("ALTER TABLE " + OVERFLOW + " ADD CONSTRAINT " + OVERFLOW_BOUND
+                + " CHECK (expires_at >= '" + start + "')");
+        addKeys(OVERFLOW);
+    }
+
+    private void addKeys(String partition) {
+        jdbcTemplate.execute("ALTER TABLE " + partition + " ADD PRIMARY KEY (id)");
+        jdbcTemplate.execute("ALTER TABLE " + partition + " ADD UNIQUE (short_code)");
+    }
+
+    private TreeSet<LocalDate> dailyPartitions() {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = ?::regclass",
+                String.class, TABLE);
+        TreeSet<LocalDate> days = new TreeSet<>();
+        for (String partition : partitions) {
+            Matcher matcher = DAILY.matcher(partition);
+            if (matcher.matches()) {
+                days.add(LocalDate.parse(matcher.group(1), DAY));
+            }
+        }
+        return days;
+    }
+
+    private boolean isPartitioned() {
+        return "p".equals(jdbcTemplate.queryForObject(
+                "SELECT c.relkind FROM pg_class c WHERE c.oid = to_regclass(?)", String.class, TABLE));
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(?)", LOCK_KEY);
+    }
+
+    private static String partitionName(LocalDate day) {
+        return "short_urls_p" + day.format(DAY);
+    }
+}
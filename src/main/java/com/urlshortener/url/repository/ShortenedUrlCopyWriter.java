@@ -0,0 +1,99 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.models.ShortenedUrl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts short URLs with PostgreSQL {@code COPY ... FROM STDIN} on the connection of the current transaction.
+ * Rows bypass Hibernate, so created events are published here instead of by the entity listener.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ShortenedUrlCopyWriter {
+    private static final String COPY_SQL = "COPY short_urls (id, short_code, original_url, url_hash, expires_at, clicks, user_id, redirect_policy, created_at, updated_at) "
+            + "FROM STDIN WITH (FORMAT csv)";
+
+    private final DataSource dataSource;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    /**
+     * Whether the current database supports {@code COPY}.
+     */
+    public boolean isSupported() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    public long copy(List<ShortenedUrl> shortenedUrls) {
+        if (shortenedUrls.isEmpty()) {
+            return 0;
+        }
+        String now = LocalDateTime.now().toString();
+        StringBuilder rows = new StringBuilder(shortenedUrls.size() * 128);
+        for (ShortenedUrl shortenedUrl : shortenedUrls) {
+            rows.append(UUID.randomUUID()).append(',');
+            appendQuoted(rows, shortenedUrl.getShortCode()).append(',');
+            appendQuoted(rows, shortenedUrl.getOriginalUrl()).append(',');
+            rows.append(shortenedUrl.getUrlHash()).append(',');
+            if (shortenedUrl.getExpiresAt() != null) {
+                rows.append(shortenedUrl.getExpiresAt());
+            }
+            rows.append(',').append(shortenedUrl.getClicks()).append(',');
+            if (shortenedUrl.getUser() != null) {
+                rows.append(shortenedUrl.getUser().getId());
+            }
+            rows.append(',');
+            if (shortenedUrl.getRedirectPolicy() != null) {
+                rows.append(shortenedUrl.getRedirectPolicy().name());
+            }
+            rows.append(',').append(now).append(',').append(now).append('\n');
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            long copied = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(rows.toString()));
+            log.debug("Copied {} short URLs", copied);
+        } catch (SQLException | IOException e) {
+            throw new DataAccessResourceFailureException("COPY into short_urls failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        shortenedUrls.forEach(shortenedUrl -> applicationEventPublisher.publishEvent(ShortenedUrlCreatedEvent.of(shortenedUrl)));
+        return shortenedUrls.size();
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder rows, String value) {
+        rows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        return rows.append('"');
+    }
+}
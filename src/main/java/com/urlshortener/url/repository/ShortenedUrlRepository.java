@@ -2,21 +2,66 @@ package com.urlshortener.url.repository;
 
 import com.urlshortener.auth.model.User;
 import com.urlshortener.url.models.ShortenedUrl;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ShortenedUrlRepository extends JpaRepository<ShortenedUrl, String> {
+public interface ShortenedUrlRepository extends JpaRepository<ShortenedUrl, String>, ShortenedUrlRepositoryCustom {
     Optional<ShortenedUrl> findByShortCodeAndUserIsNull(String shortCode);
-    ShortenedUrl findByOriginalUrlAndUserIsNull(String originalUrl);
     void deleteByShortCode(String shortCode);
-    int deleteAllByExpiresAtBefore(LocalDateTime now);
-
-    ShortenedUrl findByOriginalUrlAndUser(String originalUrl, User user);
 
     Optional<ShortenedUrl>  findByShortCodeAndUser(String shortCode, User user);
 
     Optional<ShortenedUrl> findByShortCode(String shortCode);
+
+    // Redirect hot path: selects four columns into a record, no entity, dirty checking or lazy user proxy
+    @Transactional(readOnly = true)
+    @Query("select new com.urlshortener.url.repository.RedirectTarget(s.originalUrl, s.expiresAt, s.user.id, s.redirectPolicy) "
+            + "from ShortenedUrl s where s.shortCode = :shortCode")
+    Optional<RedirectTarget> findRedirectTargetByShortCode(String shortCode);
+
+    // Keyset page of the most clicked live links, in idx_clicks_short_code order; start with Long.MAX_VALUE and ""
+    @Transactional(readOnly = true)
+    @Query("select new com.urlshortener.url.repository.HotRedirect(s.shortCode, s.clicks, s.originalUrl, s.expiresAt, s.user.id, s.redirectPolicy) "
+            + "from ShortenedUrl s where s.clicks is not null and (s.expiresAt is null or s.expiresAt > :now) "
+            + "and (s.clicks < :clicks or (s.clicks = :clicks and s.shortCode > :shortCode)) "
+            + "order by s.clicks desc, s.shortCode")
+    List<HotRedirect> findMostClickedAfter(Long clicks, String shortCode, LocalDateTime now, Limit limit);
+
+    // Keyset page of links expiring before :before, in idx_expires_at_short_code order; start with the window start and ""
+    @Transactional(readOnly = true)
+    @Query("select new com.urlshortener.url.repository.ExpiringUrl(s.shortCode, s.expiresAt) "
+            + "from ShortenedUrl s where s.expiresAt < :before "
+            + "and (s.expiresAt > :expiresAt or (s.expiresAt = :expiresAt and s.shortCode > :shortCode)) "
+            + "order by s.expiresAt, s.shortCode")
+    List<ExpiringUrl> findExpiringAfter(LocalDateTime expiresAt, String shortCode, LocalDateTime before, Limit limit);
+
+    boolean existsByShortCode(String shortCode);
+
+    // Dedup lookups go through idx_user_url_hash and then confirm the full URL
+    ShortenedUrl findFirstByUrlHashAndOriginalUrlAndUserIsNull(Long urlHash, String originalUrl);
+
+    ShortenedUrl findFirstByUrlHashAndOriginalUrlAndUser(Long urlHash, String originalUrl, User user);
+
+    List<ShortenedUrl> findAllByUrlHashInAndUserIsNull(Collection<Long> urlHashes);
+
+    List<ShortenedUrl> findAllByUrlHashInAndUser(Collection<Long> urlHashes, User user);
+
+    @Query("select s.shortCode from ShortenedUrl s where s.shortCode in :shortCodes")
+    List<String> findExistingShortCodes(Collection<String> shortCodes);
+
+    @Query("select s.shortCode from ShortenedUrl s")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"), @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    Stream<String> streamAllShortCodes();
 }
@@ -0,0 +1,39 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.models.ShortenedUrl;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ShortenedUrlRepositoryCustom {
+    /**
+     * Inserts the short URL in a single statement unless its short code is already taken.
+     *
+     * @return {@code true} if the row was inserted, {@code false} if the short code already exists
+     */
+    boolean insertIfAbsent(ShortenedUrl shortenedUrl);
+
+    /**
+     * With {@link ShortUrlPartitions} active, locks the short codes until the transaction ends, so codes found free
+     * afterwards cannot be inserted by another transaction before this one commits. Does nothing otherwise, since the
+     * unique index then covers the whole table. Must run in a transaction.
+     */
+    void lockShortCodes(Collection<String> shortCodes);
+
+    /**
+     * Deletes the links among {@code shortCodes} that expired at or before {@code now}, leaving codes recreated with
+     * a later expiry alone, and publishes a deleted event for each. Must run in a transaction.
+     *
+     * @return short codes deleted
+     */
+    List<String> deleteExpiredByShortCodes(Collection<String> shortCodes, LocalDateTime now);
+
+    /**
+     * Deletes up to {@code limit} links that expired before {@code before}, skipping rows locked by a concurrent
+     * sweep, and publishes a deleted event for each. Must run in a transaction.
+     *
+     * @return short codes deleted
+     */
+    List<String> deleteExpiredChunk(LocalDateTime before, int limit);
+}
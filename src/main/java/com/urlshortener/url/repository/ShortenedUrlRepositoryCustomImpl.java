@@ -0,0 +1,153 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.models.ShortenedUrl;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Custom ID inserts and expiry sweeps. On PostgreSQL the conflict check and the insert are one
+ * {@code INSERT ... ON CONFLICT (short_code) DO NOTHING RETURNING} statement; other databases run a plain
+ * insert and treat a duplicate key as a conflict. With {@link ShortUrlPartitions} active, short codes are only unique
+ * per partition, so the code is checked across all of them under a transaction-scoped advisory lock on the code
+ * before a plain insert; {@link #lockShortCodes} takes the same locks for the other insert paths. Rows bypass
+ * Hibernate, so the created and deleted events are published here.
+ * Expired rows are deleted by id in chunks; on PostgreSQL the chunk is claimed with {@code FOR UPDATE SKIP LOCKED}
+ * in the same statement, so concurrent sweeps delete disjoint chunks instead of waiting on each other.
+ */
+@RequiredArgsConstructor
+public class ShortenedUrlRepositoryCustomImpl implements ShortenedUrlRepositoryCustom {
+    private static final String INSERT_SQL = "INSERT INTO short_urls (id, short_code, original_url, url_hash, expires_at, clicks, user_id, redirect_policy, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ON_CONFLICT_SQL = INSERT_SQL + " ON CONFLICT (short_code) DO NOTHING RETURNING id";
+    private static final String SELECT_EXPIRED_SQL = "SELECT id, short_code FROM short_urls WHERE expires_at < ? LIMIT ?";
+    private static final String DELETE_EXPIRED_SKIP_LOCKED_SQL = "DELETE FROM short_urls WHERE id IN ("
+            + "SELECT id FROM short_urls WHERE expires_at < ? LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING short_code";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ShortUrlPartitions shortUrlPartitions;
+
+    private Boolean postgreSql;
+
+    @Override
+    public boolean insertIfAbsent(ShortenedUrl shortenedUrl) {
+        UUID id = UUID.randomUUID();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        Object[] args = {
+                id,
+                shortenedUrl.getShortCode(),
+                shortenedUrl.getOriginalUrl(),
+                shortenedUrl.getUrlHash(),
+                shortenedUrl.getExpiresAt(),
+                shortenedUrl.getClicks(),
+                shortenedUrl.getUser() != null ? shortenedUrl.getUser().getId() : null,
+                shortenedUrl.getRedirectPolicy() != null ? shortenedUrl.getRedirectPolicy().name() : null,
+                now,
+                now
+        };
+
+        boolean inserted;
+        if (shortUrlPartitions.isActive()) {
+            lockShortCodes(List.of(shortenedUrl.getShortCode()));
+            inserted = !Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM short_urls WHERE short_code = ?)",
+                    Boolean.class, shortenedUrl.getShortCode())) && jdbcTemplate.update(INSERT_SQL, args) == 1;
+        } else if (isPostgreSql()) {
+            inserted = !jdbcTemplate.queryForList(INSERT_ON_CONFLICT_SQL, UUID.class, args).isEmpty();
+        } else {
+            try {
+                inserted = jdbcTemplate.update(INSERT_SQL, args) == 1;
+            } catch (DuplicateKeyException e) {
+                inserted = false;
+            }
+        }
+        if (!inserted) {
+            return false;
+        }
+
+        shortenedUrl.setId(id);
+        shortenedUrl.setCreatedAt(new Date(now.getTime()));
+        shortenedUrl.setUpdatedAt(new Date(now.getTime()));
+        applicationEventPublisher.publishEvent(ShortenedUrlCreatedEvent.of(shortenedUrl));
+        return true;
+    }
+
+    @Override
+    public void lockShortCodes(Collection<String> shortCodes) {
+        if (!shortUrlPartitions.isActive() || shortCodes.isEmpty()) {
+            return;
+        }
+        // Locked in code order, so two transactions locking overlapping codes cannot deadlock
+        String values = String.join(", ", Collections.nCopies(shortCodes.size(), "(?)"));
+        jdbcTemplate.queryForList("SELECT count(pg_advisory_xact_lock(hashtext(code))) FROM "
+                + "(SELECT DISTINCT code FROM (VALUES " + values + ") AS c (code) ORDER BY code OFFSET 0) AS ordered",
+                shortCodes.toArray());
+    }
+
+    @Override
+    public List<String> deleteExpiredByShortCodes(Collection<String> shortCodes, LocalDateTime now) {
+        if (shortCodes.isEmpty()) {
+            return List.of();
+        }
+        String where = " FROM short_urls WHERE short_code IN (" + placeholders(shortCodes.size()) + ") AND expires_at <= ?";
+        Object[] args = Stream.concat(shortCodes.stream(), Stream.of(now)).toArray();
+        List<String> deleted = isPostgreSql()
+                ? jdbcTemplate.queryForList("DELETE" + where + " RETURNING short_code", String.class, args)
+                : deleteSelected("SELECT id, short_code" + where, args);
+        publishDeleted(deleted);
+        return deleted;
+    }
+
+    @Override
+    public List<String> deleteExpiredChunk(LocalDateTime before, int limit) {
+        List<String> deleted = isPostgreSql()
+                ? jdbcTemplate.queryForList(DELETE_EXPIRED_SKIP_LOCKED_SQL, String.class, before, limit)
+                : deleteSelected(SELECT_EXPIRED_SQL, before, limit);
+        publishDeleted(deleted);
+        return deleted;
+    }
+
+    // Without RETURNING the rows are selected as (id, short_code) first, then deleted by id
+    private List<String> deleteSelected(String selectSql, Object... args) {
+        List<Map.Entry<UUID, String>> rows = jdbcTemplate.query(selectSql,
+                (rs, rowNum) -> Map.entry(rs.getObject(1, UUID.class), rs.getString(2)), args);
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        jdbcTemplate.update("DELETE FROM short_urls WHERE id IN (" + placeholders(rows.size()) + ")",
+                rows.stream().map(Map.Entry::getKey).toArray());
+        return rows.stream().map(Map.Entry::getValue).toList();
+    }
+
+    private void publishDeleted(List<String> shortCodes) {
+        shortCodes.forEach(shortCode -> applicationEventPublisher.publishEvent(new ShortenedUrlDeletedEvent(shortCode)));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private boolean isPostgreSql() {
+        if (postgreSql == null) {
+            postgreSql = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        }
+        return postgreSql;
+    }
+}
@@ -0,0 +1,9 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.models.ShortenerMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ShortenerMetadataRepository extends JpaRepository<ShortenerMetadata, String> {
+}
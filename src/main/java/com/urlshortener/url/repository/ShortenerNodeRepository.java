@@ -0,0 +1,33 @@
+package com.urlshortener.url.repository;
+
+import com.urlshortener.url.models.ShortenerNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ShortenerNodeRepository extends JpaRepository<ShortenerNode, Integer> {
+
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO nodes (node_id, owner, heartbeat_at) VALUES (:nodeId, :owner, :now)", nativeQuery = true)
+    int insertLease(Integer nodeId, String owner, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("update ShortenerNode n set n.owner = :owner, n.heartbeatAt = :now where n.nodeId = :nodeId and n.heartbeatAt < :expiredBefore")
+    int claimExpiredLease(Integer nodeId, String owner, LocalDateTime now, LocalDateTime expiredBefore);
+
+    @Modifying
+    @Transactional
+    @Query("update ShortenerNode n set n.heartbeatAt = :now where n.nodeId = :nodeId and n.owner = :owner")
+    int renewLease(Integer nodeId, String owner, LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ShortenerNode n where n.nodeId = :nodeId and n.owner = :owner")
+    int releaseLease(Integer nodeId, String owner);
+}
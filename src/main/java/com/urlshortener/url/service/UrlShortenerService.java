@@ -1,12 +1,32 @@
 package com.urlshortener.url.service;
 
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.url.dto.BulkShortenResultDto;
+import com.urlshortener.url.dto.ImportProgressDto;
 import com.urlshortener.url.dto.ShortUrlResponseDto;
+import com.urlshortener.url.dto.ShortenUrlRequestDto;
+import com.urlshortener.url.repository.RedirectTarget;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface UrlShortenerService {
 
-    ShortUrlResponseDto createShortenedUrl(String originalUrl, String customId, Long ttl);
+    ShortUrlResponseDto createShortenedUrl(String originalUrl, String customId, Long ttl, UrlEnums.RedirectPolicy redirectPolicy);
+
+    List<BulkShortenResultDto> createShortenedUrls(List<ShortenUrlRequestDto> requests);
+
+    ImportProgressDto importShortenedUrls(BufferedReader reader, UrlEnums.ImportFormat format,
+                                          Consumer<ImportProgressDto> progressListener) throws IOException;
+
+    RedirectTarget getRedirect(String shortCode);
 
-    String getOriginalUrl(String shortCode);
+    /**
+     * Resolves a short code that is not owned by any user, without consulting the security context.
+     */
+    RedirectTarget getAnonymousRedirect(String shortCode);
 
     void deleteShortenedUrl(String shortCode);
 }
@@ -0,0 +1,100 @@
+package com.urlshortener.url.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.config.exception.BadRequestException;
+import com.urlshortener.url.dto.ShortenUrlRequestDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses one line of an import: a JSON object for NDJSON, or {@code originalUrl,customId,ttl,redirectPolicy} for CSV.
+ */
+@Component
+@RequiredArgsConstructor
+class UrlImportLineParser {
+    private static final String CSV_HEADER = "originalUrl";
+
+    private final ObjectMapper objectMapper;
+
+    boolean isHeader(String line, UrlEnums.ImportFormat format) {
+        return format == UrlEnums.ImportFormat.CSV && line.startsWith(CSV_HEADER);
+    }
+
+    ShortenUrlRequestDto parse(String line, UrlEnums.ImportFormat format) {
+        return format == UrlEnums.ImportFormat.CSV ? parseCsv(line) : parseJson(line);
+    }
+
+    private ShortenUrlRequestDto parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, ShortenUrlRequestDto.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private ShortenUrlRequestDto parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() > 4) {
+            throw new BadRequestException("Expected at most 4 columns but found " + fields.size());
+        }
+        String ttl = field(fields, 2);
+        String redirectPolicy = field(fields, 3);
+        Long parsedTtl;
+        try {
+            parsedTtl = ttl != null ? Long.parseLong(ttl) : null;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid value '" + ttl + "' for field 'ttl'");
+        }
+        try {
+            return ShortenUrlRequestDto.builder()
+                    .originalUrl(field(fields, 0))
+                    .customId(field(fields, 1))
+                    .ttl(parsedTtl)
+                    .redirectPolicy(redirectPolicy != null ? UrlEnums.RedirectPolicy.valueOf(redirectPolicy) : null)
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid value '" + redirectPolicy + "' for field 'redirectPolicy'");
+        }
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() && !fields.get(index).isEmpty() ? fields.get(index) : null;
+    }
+
+    // RFC 4180 fields on a single line: optional double quotes, with "" as an escaped quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new BadRequestException("Unterminated quoted field");
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
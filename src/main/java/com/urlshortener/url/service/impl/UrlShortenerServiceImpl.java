@@ -1,89 +1,465 @@
 package com.urlshortener.url.service.impl;
 
 import com.urlshortener.auth.model.User;
+import com.urlshortener.common.enums.UrlEnums;
 import com.urlshortener.common.helpers.AuthenticationHelpers;
+import com.urlshortener.common.helpers.UrlCanonicalizer;
+import com.urlshortener.common.helpers.UrlHash;
+import com.urlshortener.config.exception.BadRequestException;
 import com.urlshortener.config.exception.ConflictException;
 import com.urlshortener.config.exception.NotFoundException;
-import com.urlshortener.config.util.GenerateUniqueShortCode;
+import com.urlshortener.url.cache.MissingShortCodeCache;
+import com.urlshortener.url.clicks.ClickCounter;
+import com.urlshortener.url.cache.RedirectCache;
+import com.urlshortener.url.cache.ShortCodeIndex;
+import com.urlshortener.url.dto.BulkShortenResultDto;
+import com.urlshortener.url.dto.ImportProgressDto;
 import com.urlshortener.url.dto.ShortUrlResponseDto;
+import com.urlshortener.url.dto.ShortenUrlRequestDto;
+import com.urlshortener.url.expiry.ExpiredUrlSweeper;
+import com.urlshortener.url.expiry.UrlExpiryWheel;
+import com.urlshortener.url.models.ShortUrlDeletion;
 import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.pool.ShortCodePool;
+import com.urlshortener.url.repository.RedirectTarget;
+import com.urlshortener.url.repository.ShortUrlPartitions;
+import com.urlshortener.url.repository.ShortUrlDeletionRepository;
+import com.urlshortener.url.repository.ShortenedUrlCopyWriter;
 import com.urlshortener.url.repository.ShortenedUrlRepository;
 import com.urlshortener.url.service.UrlShortenerService;
 import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jobrunr.jobs.annotations.Job;
 import org.jobrunr.scheduling.JobScheduler;
 import org.jobrunr.scheduling.cron.Cron;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class UrlShortenerServiceImpl implements UrlShortenerService {
+    // Generated codes rarely collide, so running out of attempts means the generator keeps repeating stored codes
+    private static final int MAX_CLAIM_ATTEMPTS = 10;
 
     private final ShortenedUrlRepository shortenedUrlRepository;
-    private final GenerateUniqueShortCode generateUniqueShortCode;
+    private final ShortCodePool shortCodePool;
     private final JobScheduler jobScheduler;
     private final AuthenticationHelpers authenticationHelpers;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ShortenedUrlCopyWriter shortenedUrlCopyWriter;
+    private final UrlImportLineParser importLineParser;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final RedirectCache redirectCache;
+    private final MissingShortCodeCache missingShortCodeCache;
+    private final ClickCounter clickCounter;
+    private final ShortCodeIndex shortCodeIndex;
+    private final ShortUrlDeletionRepository shortUrlDeletionRepository;
+    private final UrlExpiryWheel urlExpiryWheel;
+    private final ExpiredUrlSweeper expiredUrlSweeper;
+    private final ShortUrlPartitions shortUrlPartitions;
+
+    @Value("${shortener.index.deletion-retention-days:30}")
+    private long deletionRetentionDays;
+
+    @Value("${shortener.bulk.batch-size:500}")
+    private int bulkBatchSize;
+
+    @Value("${shortener.bulk.max-items:10000}")
+    private int bulkMaxItems;
 
     @Override
     @Transactional
-    public ShortUrlResponseDto createShortenedUrl(String originalUrl, String customId, Long ttl) {
+    public ShortUrlResponseDto createShortenedUrl(String requestedUrl, String customId, Long ttl, UrlEnums.RedirectPolicy redirectPolicy) {
         User currentUser = authenticationHelpers.getCurrentUser();
+        String originalUrl = urlCanonicalizer.canonicalize(requestedUrl);
 
         LocalDateTime expiresAt = ttl != null ? LocalDateTime.now().plusSeconds(ttl) : null;
 
         // Check if original URL already exists when custom ID is not provided
+        long urlHash = UrlHash.of(originalUrl);
         ShortenedUrl existingShortenedUrl = customId == null ? currentUser != null
-            ? shortenedUrlRepository.findByOriginalUrlAndUser(originalUrl, currentUser)
-            : shortenedUrlRepository.findByOriginalUrlAndUserIsNull(originalUrl): null;
+            ? shortenedUrlRepository.findFirstByUrlHashAndOriginalUrlAndUser(urlHash, originalUrl, currentUser)
+            : shortenedUrlRepository.findFirstByUrlHashAndOriginalUrlAndUserIsNull(urlHash, originalUrl): null;
 
-        if (existingShortenedUrl != null) {
+        if (existingShortenedUrl != null && !isExpired(existingShortenedUrl)) {
             log.info("Original URL {} already exists", originalUrl);
             return new ShortUrlResponseDto(existingShortenedUrl);
         }
 
-        // Generate custom ID if not provided
-        String shortCode = customId != null ? customId : generateUniqueShortCode.generateUniqueShortCode(shortenedUrlRepository.findAll());
+        ShortenedUrl shortenedUrl;
+        if (customId != null) {
+            // Conflict check and insert in one statement, so concurrent requests for the same ID cannot both pass
+            shortenedUrl = new ShortenedUrl(customId, originalUrl, expiresAt, 0L, currentUser);
+            shortenedUrl.setRedirectPolicy(redirectPolicy);
+            if (!shortenedUrlRepository.insertIfAbsent(shortenedUrl)) {
+                throw new ConflictException("Custom ID " + customId + " already exists");
+            }
+            shortCodePool.discard(customId);
+            scheduleExpiry(customId, expiresAt);
+        } else {
+            // Take a pre-generated code if custom ID is not provided
+            // A pooled code may have been taken as a custom ID since it was buffered, take the next one then
+            shortenedUrl = new ShortenedUrl(shortCodePool.nextShortCode(), originalUrl, expiresAt, 0L, currentUser);
+            shortenedUrl.setRedirectPolicy(redirectPolicy);
+            for (int attempt = 1; !shortenedUrlRepository.insertIfAbsent(shortenedUrl); attempt++) {
+                if (attempt == MAX_CLAIM_ATTEMPTS) {
+                    throw new IllegalStateException("No unused short code found after " + MAX_CLAIM_ATTEMPTS + " attempts");
+                }
+                log.info("Generated short code {} is already taken, taking the next one", shortenedUrl.getShortCode());
+                shortenedUrl.setShortCode(shortCodePool.nextShortCode());
+            }
+            scheduleExpiry(shortenedUrl.getShortCode(), expiresAt);
+        }
 
-        if (customId != null && shortenedUrlRepository.findByShortCode(shortCode).isPresent()) {
-            throw new ConflictException("Custom ID " + customId + " already exists");
+        log.info("Created shortened URL with code: {}", shortenedUrl.getShortCode());
+        return new ShortUrlResponseDto(shortenedUrl);
+    }
+
+    @Override
+    public List<BulkShortenResultDto> createShortenedUrls(List<ShortenUrlRequestDto> requests) {
+        if (requests.size() > bulkMaxItems) {
+            throw new BadRequestException("At most " + bulkMaxItems + " URLs can be shortened per request");
         }
+        User currentUser = authenticationHelpers.getCurrentUser();
+        BulkShortenResultDto[] results = new BulkShortenResultDto[requests.size()];
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
 
-        if(expiresAt != null) {
-            log.info("Schedule Delete expired url job for short code: {} at: {}", shortCode, expiresAt);
-            jobScheduler.schedule(expiresAt, () -> deleteExpiredUrl(shortCode));
+        // Each batch costs one dedup query, one custom ID query and one batched insert, in its own transaction
+        for (int from = 0; from < requests.size(); from += bulkBatchSize) {
+            List<ShortenUrlRequestDto> batch = requests.subList(from, Math.min(from + bulkBatchSize, requests.size()));
+            BulkShortenResultDto[] batchResults = new BulkShortenResultDto[batch.size()];
+            int firstIndex = from;
+            try {
+                transaction.executeWithoutResult(status -> createBatch(batch, firstIndex, currentUser, batchResults, false));
+            } catch (DataIntegrityViolationException e) {
+                // A code was taken between the lookup and the insert, find out which item it was
+                log.info("Bulk batch starting at {} hit a taken short code, retrying its items one by one", firstIndex);
+                createOneByOne(transaction, batch, firstIndex, currentUser, batchResults);
+            }
+            System.arraycopy(batchResults, 0, results, from, batchResults.length);
         }
+        log.info("Processed bulk shorten request of {} URLs", requests.size());
+        return Arrays.asList(results);
+    }
 
-        ShortenedUrl shortenedUrl = shortenedUrlRepository.save(new ShortenedUrl(shortCode, originalUrl, expiresAt, 0L, currentUser));
+    private void createOneByOne(TransactionTemplate transaction, List<ShortenUrlRequestDto> batch, int firstIndex,
+                                User currentUser, BulkShortenResultDto[] results) {
+        for (int i = 0; i < batch.size(); i++) {
+            List<ShortenUrlRequestDto> item = batch.subList(i, i + 1);
+            BulkShortenResultDto[] itemResults = new BulkShortenResultDto[1];
+            int index = firstIndex + i;
+            try {
+                transaction.executeWithoutResult(status -> createBatch(item, index, currentUser, itemResults, false));
+                results[i] = itemResults[0];
+            } catch (DataIntegrityViolationException e) {
+                // Not every violation is a taken code, a value too long for its column fails the same way
+                String customId = item.get(0).getCustomId();
+                results[i] = customId != null && shortenedUrlRepository.existsByShortCode(customId)
+                        ? new BulkShortenResultDto(index, BulkShortenResultDto.Status.CONFLICT, null, "Custom ID " + customId + " already exists")
+                        : new BulkShortenResultDto(index, BulkShortenResultDto.Status.INVALID, null, e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
 
-        log.info("Created shortened URL with code: {}", shortenedUrl.getShortCode());
-        return new ShortUrlResponseDto(shortenedUrl);
+    @Override
+    public ImportProgressDto importShortenedUrls(BufferedReader reader, UrlEnums.ImportFormat format,
+                                                 Consumer<ImportProgressDto> progressListener) throws IOException {
+        User currentUser = authenticationHelpers.getCurrentUser();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ImportProgressDto progress = new ImportProgressDto(0, 0, 0, 0, List.of(), null, false);
+        List<ShortenUrlRequestDto> batch = new ArrayList<>(bulkBatchSize);
+        List<Integer> lineNumbers = new ArrayList<>(bulkBatchSize);
+        Map<Integer, String> parseErrors = new HashMap<>();
+        int lineNumber = 0;
+
+        // Only one chunk of rows is held in memory at a time, whatever the size of the input
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if ((lineNumber == 1 && importLineParser.isHeader(line, format)) || line.isBlank()) {
+                continue;
+            }
+            try {
+                batch.add(importLineParser.parse(line, format));
+            } catch (BadRequestException e) {
+                batch.add(null);
+                parseErrors.put(batch.size() - 1, e.getMessage());
+            }
+            lineNumbers.add(lineNumber);
+            if (batch.size() == bulkBatchSize) {
+                boolean stored = importBatch(transaction, batch, lineNumbers, parseErrors, currentUser, progress);
+                progressListener.accept(progress);
+                if (!stored) {
+                    return stopImport(progress);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            boolean stored = importBatch(transaction, batch, lineNumbers, parseErrors, currentUser, progress);
+            progressListener.accept(progress);
+            if (!stored) {
+                return stopImport(progress);
+            }
+        }
+        progress.setErrors(List.of());
+        progress.setDone(true);
+        log.info("Imported {} rows: {} created, {} existing, {} failed", progress.getProcessed(), progress.getCreated(),
+                progress.getExisting(), progress.getFailed());
+        return progress;
+    }
+
+    // The summary keeps the error and done=false, so the client knows the rows after the failed chunk were not read
+    private ImportProgressDto stopImport(ImportProgressDto progress) {
+        progress.setErrors(List.of());
+        log.warn("Import stopped after {} rows: {}", progress.getProcessed(), progress.getError());
+        return progress;
+    }
+
+    /**
+     * Stores one chunk of imported rows and adds its outcome to the progress.
+     *
+     * @return {@code false} if the chunk could not be stored at all and the import has to stop
+     */
+    private boolean importBatch(TransactionTemplate transaction, List<ShortenUrlRequestDto> batch, List<Integer> lineNumbers,
+                                Map<Integer, String> parseErrors, User currentUser, ImportProgressDto progress) {
+        BulkShortenResultDto[] results = new BulkShortenResultDto[batch.size()];
+        try {
+            try {
+                transaction.executeWithoutResult(status -> createBatch(batch, 0, currentUser, results, true));
+            } catch (DataIntegrityViolationException e) {
+                log.info("Import chunk starting at line {} hit a taken short code, retrying its rows one by one", lineNumbers.get(0));
+                createOneByOne(transaction, batch, 0, currentUser, results);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Import chunk starting at line {} failed: {}", lineNumbers.get(0), e.getMessage());
+            progress.setProcessed(progress.getProcessed() + batch.size());
+            progress.setFailed(progress.getFailed() + batch.size());
+            progress.setErrors(List.of());
+            progress.setError("Import stopped at the chunk of lines " + lineNumbers.get(0) + " to "
+                    + lineNumbers.get(lineNumbers.size() - 1) + ": " + e.getMostSpecificCause().getMessage());
+            clearBatch(batch, lineNumbers, parseErrors);
+            return false;
+        }
+        List<BulkShortenResultDto> errors = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            BulkShortenResultDto result = results[i];
+            switch (result.getStatus()) {
+                case CREATED -> progress.setCreated(progress.getCreated() + 1);
+                case EXISTING -> progress.setExisting(progress.getExisting() + 1);
+                default -> {
+                    if (parseErrors.containsKey(i)) {
+                        result.setError(parseErrors.get(i));
+                    }
+                    result.setIndex(lineNumbers.get(i));
+                    errors.add(result);
+                }
+            }
+        }
+        progress.setProcessed(progress.getProcessed() + batch.size());
+        progress.setFailed(progress.getFailed() + errors.size());
+        progress.setErrors(errors);
+        clearBatch(batch, lineNumbers, parseErrors);
+        return true;
+    }
+
+    private static void clearBatch(List<ShortenUrlRequestDto> batch, List<Integer> lineNumbers, Map<Integer, String> parseErrors) {
+        batch.clear();
+        lineNumbers.clear();
+        parseErrors.clear();
+    }
+
+    private void createBatch(List<ShortenUrlRequestDto> requests, int firstIndex, User currentUser,
+                             BulkShortenResultDto[] results, boolean copy) {
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        Set<String> originalUrls = new HashSet<>();
+        Set<String> customIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            ShortenUrlRequestDto request = requests.get(i);
+            Set<ConstraintViolation<ShortenUrlRequestDto>> violations = request == null ? Set.of() : validator.validate(request);
+            if (request == null || !violations.isEmpty()) {
+                String error = request == null ? "Blank body" : violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining(", "));
+                results[i] = new BulkShortenResultDto(firstIndex + i, BulkShortenResultDto.Status.INVALID, null, error);
+                continue;
+            }
+            request.setOriginalUrl(urlCanonicalizer.canonicalize(request.getOriginalUrl()));
+            validIndexes.add(i);
+            if (request.getCustomId() == null) {
+                originalUrls.add(request.getOriginalUrl());
+            } else {
+                customIds.add(request.getCustomId());
+            }
+        }
+
+        Map<String, ShortenedUrl> existingByOriginalUrl = new HashMap<>();
+        if (!originalUrls.isEmpty()) {
+            Set<Long> urlHashes = originalUrls.stream().map(UrlHash::of).collect(Collectors.toSet());
+            List<ShortenedUrl> existing = currentUser != null
+                ? shortenedUrlRepository.findAllByUrlHashInAndUser(urlHashes, currentUser)
+                : shortenedUrlRepository.findAllByUrlHashInAndUserIsNull(urlHashes);
+            // A hash match is only a candidate, keep rows whose full URL was requested
+            existing.stream()
+                .filter(shortenedUrl -> originalUrls.contains(shortenedUrl.getOriginalUrl()) && !isExpired(shortenedUrl))
+                .forEach(shortenedUrl -> existingByOriginalUrl.putIfAbsent(shortenedUrl.getOriginalUrl(), shortenedUrl));
+        }
+        // Locked before the lookup, so the custom IDs found free stay free until the batch commits
+        shortenedUrlRepository.lockShortCodes(customIds);
+        Set<String> takenShortCodes = customIds.isEmpty() ? new HashSet<>() : new HashSet<>(shortenedUrlRepository.findExistingShortCodes(customIds));
+
+        List<ShortenedUrl> shortenedUrls = new ArrayList<>(validIndexes.size());
+        List<Integer> createdIndexes = new ArrayList<>(validIndexes.size());
+        List<ShortenedUrl> generated = new ArrayList<>();
+        List<String> usedCustomIds = new ArrayList<>();
+        for (int i : validIndexes) {
+            ShortenUrlRequestDto request = requests.get(i);
+            String customId = request.getCustomId();
+            if (customId == null) {
+                ShortenedUrl existing = existingByOriginalUrl.get(request.getOriginalUrl());
+                if (existing != null) {
+                    results[i] = new BulkShortenResultDto(firstIndex + i, BulkShortenResultDto.Status.EXISTING, new ShortUrlResponseDto(existing), null);
+                    continue;
+                }
+            } else if (!takenShortCodes.add(customId)) {
+                results[i] = new BulkShortenResultDto(firstIndex + i, BulkShortenResultDto.Status.CONFLICT, null, "Custom ID " + customId + " already exists");
+                continue;
+            } else {
+                usedCustomIds.add(customId);
+            }
+
+            LocalDateTime expiresAt = request.getTtl() != null ? LocalDateTime.now().plusSeconds(request.getTtl()) : null;
+            String shortCode = customId != null ? customId : shortCodePool.nextShortCode();
+            ShortenedUrl shortenedUrl = new ShortenedUrl(shortCode, request.getOriginalUrl(), expiresAt, 0L, currentUser);
+            shortenedUrl.setRedirectPolicy(request.getRedirectPolicy());
+            shortenedUrls.add(shortenedUrl);
+            createdIndexes.add(i);
+            if (customId == null) {
+                existingByOriginalUrl.put(request.getOriginalUrl(), shortenedUrl);
+                generated.add(shortenedUrl);
+            }
+        }
+
+        claimGeneratedShortCodes(generated);
+        for (int k = 0; k < shortenedUrls.size(); k++) {
+            int i = createdIndexes.get(k);
+            results[i] = new BulkShortenResultDto(firstIndex + i, BulkShortenResultDto.Status.CREATED, new ShortUrlResponseDto(shortenedUrls.get(k)), null);
+        }
+
+        shortCodePool.discardAll(usedCustomIds);
+        if (copy && shortenedUrlCopyWriter.isSupported()) {
+            shortenedUrlCopyWriter.copy(shortenedUrls);
+        } else {
+            // Through the repository, so a unique violation surfaces as a DataIntegrityViolationException
+            shortenedUrlRepository.saveAll(shortenedUrls);
+            shortenedUrlRepository.flush();
+        }
+        // Only once the rows are written, so a failed batch leaves no deletion jobs behind
+        shortenedUrls.forEach(shortenedUrl -> scheduleExpiry(shortenedUrl.getShortCode(), shortenedUrl.getExpiresAt()));
+        // Detach the batch so the persistence context does not grow with the number of rows
+        entityManager.clear();
+        log.info("Created {} shortened URLs in batch starting at {}", shortenedUrls.size(), firstIndex);
+    }
+
+    // With partitions, short codes are only unique per partition, so generated codes are locked and checked across all of them
+    private void claimGeneratedShortCodes(List<ShortenedUrl> shortenedUrls) {
+        List<ShortenedUrl> unclaimed = shortenedUrls;
+        for (int attempt = 0; shortUrlPartitions.isActive() && !unclaimed.isEmpty(); attempt++) {
+            if (attempt == MAX_CLAIM_ATTEMPTS) {
+                throw new IllegalStateException("No unused short code found for " + unclaimed.size() + " URLs after "
+                        + MAX_CLAIM_ATTEMPTS + " attempts");
+            }
+            List<String> shortCodes = unclaimed.stream().map(ShortenedUrl::getShortCode).toList();
+            shortenedUrlRepository.lockShortCodes(shortCodes);
+            Set<String> taken = new HashSet<>(shortenedUrlRepository.findExistingShortCodes(shortCodes));
+            unclaimed = unclaimed.stream().filter(shortenedUrl -> taken.contains(shortenedUrl.getShortCode())).toList();
+            unclaimed.forEach(shortenedUrl -> shortenedUrl.setShortCode(shortCodePool.nextShortCode()));
+        }
+    }
+
+    // Expired rows can outlive their expiry until the wheel, the sweep or a partition drop removes them
+    private static boolean isExpired(ShortenedUrl shortenedUrl) {
+        return shortenedUrl.getExpiresAt() != null && !shortenedUrl.getExpiresAt().isAfter(LocalDateTime.now());
+    }
+
+    // The expiry wheel picks up committed links itself and partitions drop them, JobRunr is only used without both
+    private void scheduleExpiry(String shortCode, LocalDateTime expiresAt) {
+        if(expiresAt != null && !urlExpiryWheel.isEnabled() && !shortUrlPartitions.isActive()) {
+            log.info("Schedule Delete expired url job for short code: {} at: {}", shortCode, expiresAt);
+            jobScheduler.schedule(expiresAt, () -> deleteExpiredUrl(shortCode));
+        }
     }
 
     @Override
-    @Transactional
-    public String getOriginalUrl(String shortCode) {
+    public RedirectTarget getRedirect(String shortCode) {
         User currentUser = authenticationHelpers.getCurrentUser();
+        return resolveRedirect(shortCode, currentUser != null ? currentUser.getId() : null);
+    }
 
-        Optional<ShortenedUrl> optionalShortenedUrl = currentUser != null
-            ? shortenedUrlRepository.findByShortCodeAndUser(shortCode, currentUser)
-            : shortenedUrlRepository.findByShortCodeAndUserIsNull(shortCode);
+    @Override
+    public RedirectTarget getAnonymousRedirect(String shortCode) {
+        return resolveRedirect(shortCode, null);
+    }
+
+    private RedirectTarget resolveRedirect(String shortCode, UUID currentUserId) {
+        RedirectTarget redirect = missingShortCodeCache.isKnownMissing(shortCode)
+            ? null : redirectCache.get(shortCode, this::loadRedirect);
 
-        if (optionalShortenedUrl.isEmpty() || (optionalShortenedUrl.get().getExpiresAt() != null &&
-                optionalShortenedUrl.get().getExpiresAt().isBefore(LocalDateTime.now()))) {
+        if (redirect == null) {
+            missingShortCodeCache.recordMissing(shortCode);
             throw new NotFoundException("Short URL not found or does not belong to current user");
         }
-        ShortenedUrl shortenedUrl = optionalShortenedUrl.get();
-        shortenedUrl.setClicks(shortenedUrl.getClicks() + 1L);
-        shortenedUrlRepository.save(shortenedUrl);
-        log.info("Retrieved original URL: {}", shortenedUrl.getOriginalUrl());
-        return shortenedUrl.getOriginalUrl();
+        if (!Objects.equals(redirect.userId(), currentUserId)) {
+            throw new NotFoundException("Short URL not found or does not belong to current user");
+        }
+        clickCounter.record(shortCode);
+        log.info("Retrieved original URL: {}", redirect.originalUrl());
+        return redirect;
+    }
+
+    private RedirectTarget loadRedirect(String shortCode) {
+        RedirectTarget indexed = shortCodeIndex.get(shortCode);
+        if (indexed != null) {
+            if (!indexed.isExpired()) {
+                return indexed;
+            }
+            // The code may have been reused after the link expired, so the database decides
+            shortCodeIndex.remove(shortCode);
+        }
+        long stamp = shortCodeIndex.stamp(shortCode);
+        return shortenedUrlRepository.findRedirectTargetByShortCode(shortCode)
+            .filter(redirect -> !redirect.isExpired())
+            .map(redirect -> {
+                shortCodeIndex.put(shortCode, redirect, stamp);
+                return redirect;
+            })
+            .orElse(null);
     }
 
     @Override
@@ -98,6 +474,7 @@ public class UrlShortenerServiceImpl implements UrlShortenerService {
         if(shortenedUrl.isPresent()){
             log.info("Deleted URL with code: {}", shortCode);
             shortenedUrlRepository.deleteByShortCode(shortCode);
+            shortUrlDeletionRepository.save(new ShortUrlDeletion(shortCode, LocalDateTime.now()));
         }
         else
         {
@@ -112,18 +489,41 @@ public class UrlShortenerServiceImpl implements UrlShortenerService {
         log.info("Job - deleted URL with code: {}", shortCode);
     }
 
-    @Transactional
+    // Not transactional: the sweeper commits chunk by chunk
     @Job(name = "Delete all expired urls", labels = "url-shortener-delete-all-expired-urls", retries = -1)
     public void deleteExpiredUrls() {
-        LocalDateTime now = LocalDateTime.now();
-        int deletedCount = shortenedUrlRepository.deleteAllByExpiresAtBefore(now);
-        log.info("Job - deleted {} expired short URLs before: {}", deletedCount, now);
+        if (shortUrlPartitions.isActive()) {
+            return;
+        }
+        int deletedCount = expiredUrlSweeper.sweep();
+        log.info("Job - deleted {} expired short URLs", deletedCount);
+    }
 
+    @Job(name = "Maintain short URL partitions", labels = "url-shortener-maintain-partitions")
+    public void maintainPartitions() {
+        int droppedCount = shortUrlPartitions.maintain();
+        log.info("Job - dropped {} expired short URL partitions", droppedCount);
+    }
+
+    @Job(name = "Prune short URL deletion log", labels = "url-shortener-prune-deletion-log")
+    public void pruneDeletionLog() {
+        Long newest = shortUrlDeletionRepository.findMaxId();
+        if (newest == null) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minusDays(deletionRetentionDays);
+        int prunedCount = shortUrlDeletionRepository.deleteAllByDeletedAtBeforeAndIdLessThan(before, newest);
+        log.info("Job - pruned {} short URL deletions before: {}", prunedCount, before);
     }
 
     @PostConstruct
     public void scheduleRecurrently() {
         log.info("Registering Delete all expired urls job for every half hour");
         jobScheduler.scheduleRecurrently(Cron.everyHalfHour(), this::deleteExpiredUrls);
+        jobScheduler.scheduleRecurrently(Cron.daily(), this::pruneDeletionLog);
+        if (shortUrlPartitions.isActive()) {
+            // Hourly rather than daily, so a failed run is retried long before partitions run out
+            jobScheduler.scheduleRecurrently(Cron.hourly(), this::maintainPartitions);
+        }
     }
 }
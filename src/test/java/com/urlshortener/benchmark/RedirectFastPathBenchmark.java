@@ -0,0 +1,96 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.UrlshortenerApplication;
+import com.urlshortener.url.controller.RedirectFastPathFilter;
+import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * CPU and allocation cost of an anonymous redirect through {@link RedirectFastPathFilter} against the same
+ * request through the Spring Security filter chain, the JWT filter and the DispatcherServlet. Both run in-process
+ * on one application context through MockMvc, with the redirect cache warm, so the difference is the request
+ * pipeline. Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.urlshortener.benchmark.RedirectFastPathBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectFastPathBenchmark {
+    private static final int LINKS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc fastPath;
+    private MockMvc fullChain;
+    private final List<String> shortCodes = new ArrayList<>(LINKS);
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() throws Exception {
+        context = SpringApplication.run(UrlshortenerApplication.class,
+                "--server.port=0", "--spring.jpa.show-sql=false",
+                "--logging.level.com.urlshortener=WARN", "--logging.level.org.springframework.web=WARN");
+        List<ShortenedUrl> links = new ArrayList<>(LINKS);
+        for (int i = 0; i < LINKS; i++) {
+            String shortCode = "f" + i;
+            shortCodes.add(shortCode);
+            links.add(new ShortenedUrl(shortCode, "https://www.example.com/page/" + i, null, 0L, null));
+        }
+        context.getBean(ShortenedUrlRepository.class).saveAll(links);
+
+        WebApplicationContext webContext = (WebApplicationContext) context;
+        Filter securityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        fastPath = MockMvcBuilders.webAppContextSetup(webContext)
+                .addFilters(context.getBean(RedirectFastPathFilter.class), securityFilterChain)
+                .build();
+        fullChain = MockMvcBuilders.webAppContextSetup(webContext)
+                .addFilters(securityFilterChain)
+                .build();
+        for (String shortCode : shortCodes) {
+            fullChain.perform(get("/mixed/url/{id}", shortCode));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult fastPath() throws Exception {
+        return fastPath.perform(get("/mixed/url/{id}", shortCodes.get(random.nextInt(LINKS)))).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult fullChain() throws Exception {
+        return fullChain.perform(get("/mixed/url/{id}", shortCodes.get(random.nextInt(LINKS)))).andReturn();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedirectFastPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.UrlshortenerApplication;
+import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Closed-loop redirect load test against one application run, with platform or virtual request threads.
+ * Run it once per mode and compare; JobRunr is configured statically, so both modes cannot share one JVM.
+ * The redirect cache is disabled so every request reaches the database through the configured Hikari pool.
+ * Extra arguments are passed to the application, for example
+ * {@code --spring.datasource.url=jdbc:postgresql://localhost:5432/url_shortener} to measure against PostgreSQL
+ * instead of the in-memory H2 database of the test profile.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.urlshortener.benchmark.RedirectLoadTest
+ * -Dexec.classpathScope=test -Dexec.args="virtual 2000 20"} (mode, concurrent clients, seconds).
+ */
+public class RedirectLoadTest {
+    private static final int LINKS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "virtual";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String[] extra = args.length > 3 ? Arrays.copyOfRange(args, 3, args.length) : new String[0];
+
+        Result result = run("virtual".equals(mode), clients, seconds, extra);
+
+        System.out.printf("%-9s %8s %10s %10s %10s %8s%n", "threads", "clients", "req/s", "p50 ms", "p99 ms", "errors");
+        System.out.println(result.format(mode, clients));
+        System.exit(0);
+    }
+
+    private record Result(double throughput, double p50Millis, double p99Millis, long errors) {
+        String format(String mode, int clients) {
+            return String.format("%-9s %8d %10.0f %10.2f %10.2f %8d", mode, clients, throughput, p50Millis, p99Millis, errors);
+        }
+    }
+
+    private static Result run(boolean virtualThreads, int clients, int seconds, String[] extra) throws Exception {
+        String[] properties = Stream.concat(Stream.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--shortener.cache.redirect.enabled=false",
+                "--shortener.cache.negative.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.urlshortener=WARN",
+                "--logging.level.org.springframework.web=WARN"), Arrays.stream(extra)).toArray(String[]::new);
+        try (ConfigurableApplicationContext context = SpringApplication.run(UrlshortenerApplication.class, properties)) {
+            ShortenedUrlRepository repository = context.getBean(ShortenedUrlRepository.class);
+            List<ShortenedUrl> links = new ArrayList<>(LINKS);
+            for (int i = 0; i < LINKS; i++) {
+                links.add(new ShortenedUrl("load" + i, "https://www.example.com/page/" + i, null, 0L, null));
+            }
+            repository.saveAll(links);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            String baseUrl = "http://localhost:" + port + contextPath + "/mixed/url/load";
+
+            HttpClient client = HttpClient.newBuilder()
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+
+            // Warm up the JIT and the connection pools
+            drive(client, baseUrl, Math.min(clients, 200), 5, null);
+            long[] latencies = new long[1 << 22];
+            AtomicLong recorded = new AtomicLong();
+            long[] counts = drive(client, baseUrl, clients, seconds, latency -> {
+                long index = recorded.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[(int) index] = latency;
+                }
+            });
+            long[] sorted = Arrays.copyOf(latencies, (int) Math.min(recorded.get(), latencies.length));
+            Arrays.sort(sorted);
+            return new Result((double) counts[0] / seconds,
+                    percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.99) / 1e6, counts[1]);
+        }
+    }
+
+    private static long[] drive(HttpClient client, String baseUrl, int clients, int seconds,
+                                LongConsumer latencyListener) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create(baseUrl + ThreadLocalRandom.current().nextInt(LINKS))).GET().build();
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 302) {
+                                completed.increment();
+                                if (latencyListener != null) {
+                                    latencyListener.accept(System.nanoTime() - started);
+                                }
+                            } else {
+                                errors.increment();
+                            }
+                        } catch (Exception e) {
+                            errors.increment();
+                        }
+                    }
+                });
+            }
+        }
+        return new long[]{completed.sum(), errors.sum()};
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))];
+    }
+}
@@ -0,0 +1,87 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.UrlshortenerApplication;
+import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database cost of resolving one redirect, bypassing the redirect cache: the former path that loads the entity
+ * and bumps its clicks in a read-write transaction, against the read-only {@code RedirectTarget} projection.
+ * Runs against the H2 database of the test profile, with the GC profiler reporting allocations per redirect
+ * ({@code gc.alloc.rate.norm}). Run with {@code mvn test-compile exec:java
+ * -Dexec.mainClass=com.urlshortener.benchmark.RedirectResolutionBenchmark -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedirectResolutionBenchmark {
+    private static final int LINKS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private ShortenedUrlRepository repository;
+    private TransactionTemplate readWrite;
+    private final List<String> shortCodes = new ArrayList<>(LINKS);
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        context = SpringApplication.run(UrlshortenerApplication.class,
+                "--server.port=0", "--shortener.cache.negative.enabled=false", "--spring.jpa.show-sql=false");
+        repository = context.getBean(ShortenedUrlRepository.class);
+        readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<ShortenedUrl> links = new ArrayList<>(LINKS);
+        for (int i = 0; i < LINKS; i++) {
+            String shortCode = "b" + i;
+            shortCodes.add(shortCode);
+            links.add(new ShortenedUrl(shortCode, "https://www.example.com/page/" + i, null, 0L, null));
+        }
+        repository.saveAll(links);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String entityReadWrite() {
+        String shortCode = shortCodes.get(random.nextInt(LINKS));
+        return readWrite.execute(status -> {
+            ShortenedUrl shortenedUrl = repository.findByShortCodeAndUserIsNull(shortCode).orElseThrow();
+            shortenedUrl.setClicks(shortenedUrl.getClicks() + 1L);
+            repository.save(shortenedUrl);
+            return shortenedUrl.getOriginalUrl();
+        });
+    }
+
+    @Benchmark
+    public String projectionReadOnly() {
+        String shortCode = shortCodes.get(random.nextInt(LINKS));
+        return repository.findRedirectTargetByShortCode(shortCode).orElseThrow().originalUrl();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RedirectResolutionBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
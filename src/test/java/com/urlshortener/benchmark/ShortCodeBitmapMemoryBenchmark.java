@@ -0,0 +1,44 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.config.util.ShortCodeBitmap;
+import com.urlshortener.config.util.ShortCodeCodec;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reports the memory the occupancy {@link ShortCodeBitmap} needs per million stored codes, for codes spread at
+ * random over the keyspace (random generator) and for consecutive ordinals (unscrambled sequence).
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.urlshortener.benchmark.ShortCodeBitmapMemoryBenchmark
+ * -Dexec.classpathScope=test -Dexec.args="6 1000000"} (code length, codes).
+ */
+public class ShortCodeBitmapMemoryBenchmark {
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        int codes = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        ShortCodeCodec codec = new ShortCodeCodec(ALPHABET, length, 0);
+
+        ShortCodeBitmap random = new ShortCodeBitmap(codec, length);
+        SplittableRandom seed = new SplittableRandom(42);
+        while (random.cardinality() < codes) {
+            random.add(codec.encode(seed.nextLong(codec.getKeyspace())));
+        }
+        random.optimize();
+
+        ShortCodeBitmap sequential = new ShortCodeBitmap(codec, length);
+        for (long ordinal = 0; ordinal < codes; ordinal++) {
+            sequential.add(codec.encode(ordinal));
+        }
+        sequential.optimize();
+
+        System.out.printf("%-11s %10s %14s %14s%n", "codes", "count", "bytes", "bytes/code");
+        print("random", codes, random.sizeInBytes());
+        print("sequential", codes, sequential.sizeInBytes());
+        System.out.printf("keyspace of %d characters: %d codes%n", length, codec.getKeyspace());
+    }
+
+    private static void print(String name, int codes, long bytes) {
+        System.out.printf("%-11s %10d %14d %14.2f%n", name, codes, bytes, (double) bytes / codes);
+    }
+}
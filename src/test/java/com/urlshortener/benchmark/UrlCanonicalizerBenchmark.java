@@ -0,0 +1,70 @@
+package com.urlshortener.benchmark;
+
+import com.urlshortener.common.helpers.UrlCanonicalizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the single-pass {@link UrlCanonicalizer} with a straightforward {@link URI}-based normalizer.
+ * Run with {@code mvn test-compile exec:java -Dexec.mainClass=com.urlshortener.benchmark.UrlCanonicalizerBenchmark
+ * -Dexec.classpathScope=test}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlCanonicalizerBenchmark {
+    private static final String[] URLS = {
+            "https://www.example.com",
+            "HTTPS://Example.COM:443/path/to/page?utm_source=news&b=2&a=1&fbclid=abc#section",
+            "http://shop.example.com/search?q=red%20shoes&page=3&sort=price&utm_campaign=spring",
+            "https://example.com/a%2db%2f%c3%a9?z=26&y=25&x=24&w=23&v=22&gclid=xyz",
+    };
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(true, new String[]{"utm_*", "fbclid", "gclid"});
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String url : URLS) {
+            blackhole.consume(canonicalizer.canonicalize(url));
+        }
+    }
+
+    @Benchmark
+    public void uriBased(Blackhole blackhole) throws URISyntaxException {
+        for (String url : URLS) {
+            blackhole.consume(uriCanonicalize(url));
+        }
+    }
+
+    private static String uriCanonicalize(String url) throws URISyntaxException {
+        URI uri = new URI(url).normalize();
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        int port = uri.getPort();
+        if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+            port = -1;
+        }
+        String query = uri.getRawQuery() == null ? null : Arrays.stream(uri.getRawQuery().split("&"))
+                .filter(param -> !param.startsWith("utm_") && !param.startsWith("fbclid=") && !param.startsWith("gclid="))
+                .sorted()
+                .collect(Collectors.joining("&"));
+        return new URI(scheme, uri.getUserInfo(), uri.getHost().toLowerCase(Locale.ROOT), port, uri.getPath(),
+                query == null || query.isEmpty() ? null : query, uri.getFragment()).toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(UrlCanonicalizerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.urlshortener.common.helpers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("URL Canonicalizer Tests")
+class UrlCanonicalizerTest {
+    private final UrlCanonicalizer canonicalizer =
+            new UrlCanonicalizer(true, new String[]{"utm_*", "fbclid", "gclid"});
+
+    @Test
+    @DisplayName("Should lowercase scheme and host and drop default ports.")
+    void normalizesAuthority() {
+        assertEquals("https://example.com/Path", canonicalizer.canonicalize("HTTPS://Example.COM:443/Path"));
+        assertEquals("http://example.com:8080/", canonicalizer.canonicalize("http://EXAMPLE.com:8080/"));
+    }
+
+    @Test
+    @DisplayName("Should normalize percent-escapes.")
+    void normalizesEscapes() {
+        assertEquals("https://example.com/a-b%2F%C3%A9", canonicalizer.canonicalize("https://example.com/a%2db%2f%c3%a9"));
+    }
+
+    @Test
+    @DisplayName("Should strip tracking parameters and sort the rest.")
+    void normalizesQuery() {
+        assertEquals("https://example.com/a?a=2&b=1#top",
+                canonicalizer.canonicalize("https://example.com/a?utm_source=x&b=1&FBCLID=y&a=2#top"));
+        assertEquals("https://example.com/a", canonicalizer.canonicalize("https://example.com/a?utm_medium=email"));
+    }
+
+    @Test
+    @DisplayName("Should leave already canonical or unsupported URLs unchanged.")
+    void leavesOthersUnchanged() {
+        assertEquals("https://www.example.com", canonicalizer.canonicalize("https://www.example.com"));
+        assertEquals("mailto:someone@example.com", canonicalizer.canonicalize("mailto:someone@example.com"));
+        assertEquals("HTTP://Example.com/?b=1&a=2",
+                new UrlCanonicalizer(false, new String[0]).canonicalize("HTTP://Example.com/?b=1&a=2"));
+    }
+}
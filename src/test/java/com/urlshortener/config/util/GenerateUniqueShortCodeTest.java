@@ -0,0 +1,49 @@
+package com.urlshortener.config.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Generate Unique Short Code Tests")
+class GenerateUniqueShortCodeTest {
+    private static final int MAX_ATTEMPTS = 8;
+
+    private final ShortCodeOccupancy shortCodeOccupancy = mock(ShortCodeOccupancy.class);
+
+    private GenerateUniqueShortCode generator(int idLength, int maxLength) {
+        when(shortCodeOccupancy.getMaxLength()).thenReturn(maxLength);
+        GenerateUniqueShortCode generator = new GenerateUniqueShortCode(shortCodeOccupancy, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(generator, "alphabets", "0123456789abcdefghijklmnopqrstuvwxyz");
+        ReflectionTestUtils.setField(generator, "idLength", idLength);
+        ReflectionTestUtils.setField(generator, "maxOccupancy", 0.5);
+        ReflectionTestUtils.setField(generator, "maxAttempts", MAX_ATTEMPTS);
+        generator.init();
+        return generator;
+    }
+
+    @Test
+    @DisplayName("Should grow the length after max-attempts collisions in a row.")
+    void generate_GrowsOnCollisions() {
+        GenerateUniqueShortCode generator = generator(6, 8);
+        doReturn(false).when(shortCodeOccupancy).tryClaim(argThat(shortCode -> shortCode.length() == 6));
+        doReturn(true).when(shortCodeOccupancy).tryClaim(argThat(shortCode -> shortCode.length() == 7));
+
+        assertEquals(7, generator.generateShortCode().length());
+        verify(shortCodeOccupancy, times(MAX_ATTEMPTS)).tryClaim(argThat(shortCode -> shortCode.length() == 6));
+    }
+
+    @Test
+    @DisplayName("Should fail instead of spinning once the keyspace at the maximum length is saturated.")
+    void generate_FailsWhenSaturatedAtMaxLength() {
+        GenerateUniqueShortCode generator = generator(6, 7);
+        when(shortCodeOccupancy.tryClaim(anyString())).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, generator::generateShortCode);
+        verify(shortCodeOccupancy, times(2 * MAX_ATTEMPTS)).tryClaim(anyString());
+    }
+}
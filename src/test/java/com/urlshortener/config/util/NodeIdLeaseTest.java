@@ -0,0 +1,78 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.repository.ShortenerNodeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Node ID Lease Tests")
+class NodeIdLeaseTest {
+    private static final long LEASE_SECONDS = 300;
+
+    private final ShortenerNodeRepository shortenerNodeRepository = mock(ShortenerNodeRepository.class);
+    private NodeIdLease nodeIdLease;
+
+    @BeforeEach
+    void setUp() {
+        when(shortenerNodeRepository.findAll()).thenReturn(List.of());
+        nodeIdLease = new NodeIdLease(shortenerNodeRepository, new BackgroundThreads(false));
+        ReflectionTestUtils.setField(nodeIdLease, "configuredNodeId", -1);
+        ReflectionTestUtils.setField(nodeIdLease, "leaseSeconds", LEASE_SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        nodeIdLease.release();
+    }
+
+    @Test
+    @DisplayName("Should lease another node ID when the heartbeat finds the lease taken over.")
+    void renew_LeaseLost() {
+        when(shortenerNodeRepository.insertLease(eq(0), anyString(), any()))
+                .thenReturn(1)
+                .thenThrow(new DataIntegrityViolationException("node 0 taken"));
+        when(shortenerNodeRepository.insertLease(eq(1), anyString(), any())).thenReturn(1);
+        nodeIdLease.acquire();
+        assertEquals(0, nodeIdLease.getNodeId());
+
+        when(shortenerNodeRepository.renewLease(eq(0), anyString(), any())).thenReturn(0);
+        nodeIdLease.renew();
+
+        assertEquals(1, nodeIdLease.getNodeId());
+    }
+
+    @Test
+    @DisplayName("Should refuse to hand out the node ID when no node ID could be leased again.")
+    void renew_NoFreeNodeId() {
+        when(shortenerNodeRepository.insertLease(eq(0), anyString(), any())).thenReturn(1);
+        nodeIdLease.acquire();
+
+        when(shortenerNodeRepository.renewLease(eq(0), anyString(), any())).thenReturn(0);
+        when(shortenerNodeRepository.insertLease(anyInt(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("all taken"));
+        nodeIdLease.renew();
+
+        assertThrows(IllegalStateException.class, nodeIdLease::getNodeId);
+    }
+
+    @Test
+    @DisplayName("Should refuse to hand out the node ID once the lease was not renewed in time.")
+    void getNodeId_LeaseExpired() {
+        when(shortenerNodeRepository.insertLease(eq(0), anyString(), any())).thenReturn(1);
+        nodeIdLease.acquire();
+
+        ReflectionTestUtils.setField(nodeIdLease, "renewedAt", System.nanoTime() - TimeUnit.SECONDS.toNanos(LEASE_SECONDS + 1));
+
+        assertThrows(IllegalStateException.class, nodeIdLease::getNodeId);
+    }
+}
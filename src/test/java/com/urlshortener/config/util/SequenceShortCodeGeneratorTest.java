@@ -0,0 +1,54 @@
+package com.urlshortener.config.util;
+
+import com.urlshortener.url.repository.ShortenedUrlRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Sequence Short Code Generator Tests")
+class SequenceShortCodeGeneratorTest {
+    private static final int BLOCK_SIZE = 10;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ShortenedUrlRepository shortenedUrlRepository = mock(ShortenedUrlRepository.class);
+    private final ShortCodeCodec codec = new ShortCodeCodec("0123456789abcdefghijklmnopqrstuvwxyz", 6, 42);
+
+    private SequenceShortCodeGenerator generator() {
+        SequenceShortCodeGenerator generator = new SequenceShortCodeGenerator(jdbcTemplate, shortenedUrlRepository,
+            mock(EntityManagerFactory.class), codec);
+        ReflectionTestUtils.setField(generator, "blockSize", BLOCK_SIZE);
+        ReflectionTestUtils.setField(generator, "nextBlockSql", "select next value for short_code_seq");
+        return generator;
+    }
+
+    @Test
+    @DisplayName("Should skip codes of a leased block that are already stored.")
+    void generate_SkipsStoredCodes() {
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(0L, 1L);
+        String stored = codec.encode(codec.scramble(3));
+        when(shortenedUrlRepository.findExistingShortCodes(anyCollection()))
+            .thenAnswer(invocation -> invocation.<List<String>>getArgument(0).contains(stored) ? List.of(stored) : List.of());
+        SequenceShortCodeGenerator generator = generator();
+
+        Set<String> generated = new HashSet<>();
+        for (int i = 0; i < BLOCK_SIZE; i++) {
+            generated.add(generator.generateShortCode());
+        }
+
+        assertEquals(BLOCK_SIZE, generated.size());
+        assertFalse(generated.contains(stored));
+        // The skipped code is made up for from the next block
+        assertTrue(generated.contains(codec.encode(codec.scramble(BLOCK_SIZE))));
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+    }
+}
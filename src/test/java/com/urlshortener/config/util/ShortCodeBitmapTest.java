@@ -0,0 +1,70 @@
+package com.urlshortener.config.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Short Code Bitmap Tests")
+class ShortCodeBitmapTest {
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int MILLION = 1_000_000;
+
+    private final ShortCodeCodec codec = new ShortCodeCodec(ALPHABET, 6, 0);
+
+    @Test
+    @DisplayName("Should track claimed and removed short codes.")
+    void claimAndRemove() {
+        ShortCodeBitmap bitmap = new ShortCodeBitmap(codec, 6);
+
+        assertTrue(bitmap.tryClaim("abc123"));
+        assertFalse(bitmap.tryClaim("abc123"));
+        assertTrue(bitmap.contains("abc123"));
+
+        bitmap.remove("abc123");
+
+        assertFalse(bitmap.contains("abc123"));
+        assertEquals(0, bitmap.cardinality());
+    }
+
+    @Test
+    @DisplayName("Should ignore codes of another length or outside the alphabet.")
+    void ignoresForeignCodes() {
+        ShortCodeBitmap bitmap = new ShortCodeBitmap(codec, 6);
+
+        bitmap.add("abc");
+        bitmap.add("ab-123");
+
+        assertEquals(0, bitmap.cardinality());
+        assertFalse(bitmap.tryClaim("ab-123"));
+    }
+
+    @Test
+    @DisplayName("Should keep a million random codes in a few bytes per code.")
+    void memoryPerMillionRandomCodes() {
+        ShortCodeBitmap bitmap = new ShortCodeBitmap(codec, 6);
+        SplittableRandom random = new SplittableRandom(42);
+        while (bitmap.cardinality() < MILLION) {
+            bitmap.add(codec.encode(random.nextLong(codec.getKeyspace())));
+        }
+        bitmap.optimize();
+
+        long bytes = bitmap.sizeInBytes();
+        assertTrue(bytes < 32L * 1024 * 1024, "Bitmap uses " + bytes + " bytes per million random codes");
+    }
+
+    @Test
+    @DisplayName("Should compress a million sequential codes to well under a byte per code.")
+    void memoryPerMillionSequentialCodes() {
+        ShortCodeBitmap bitmap = new ShortCodeBitmap(codec, 6);
+        for (long ordinal = 0; ordinal < MILLION; ordinal++) {
+            bitmap.add(codec.encode(ordinal));
+        }
+        bitmap.optimize();
+
+        long bytes = bitmap.sizeInBytes();
+        assertTrue(bytes < MILLION, "Bitmap uses " + bytes + " bytes per million sequential codes");
+    }
+}
@@ -0,0 +1,97 @@
+package com.urlshortener.config.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Snowflake Short Code Generator Tests")
+class SnowflakeShortCodeGeneratorTest {
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int NODES = 8;
+    private static final int IDS_PER_NODE = 500_000;
+
+    private final ShortCodeCodec codec = new ShortCodeCodec(ALPHABET, 6, 0);
+
+    @Test
+    @DisplayName("Should not produce collisions across concurrently generating nodes.")
+    void generate_NoCollisionsAcrossNodes() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NODES);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            // Each simulated node has its own clock that only ticks every 100k reads, forcing counter overflows
+            AtomicLong reads = new AtomicLong();
+            SnowflakeShortCodeGenerator generator = new SnowflakeShortCodeGenerator(codec, node,
+                () -> SnowflakeShortCodeGenerator.EPOCH_SECOND + reads.getAndIncrement() / 100_000);
+            results.add(executor.submit(() -> {
+                long[] ids = new long[IDS_PER_NODE];
+                for (int i = 0; i < IDS_PER_NODE; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+
+        long[] all = new long[NODES * IDS_PER_NODE];
+        for (int node = 0; node < NODES; node++) {
+            System.arraycopy(results.get(node).get(), 0, all, node * IDS_PER_NODE, IDS_PER_NODE);
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            assertNotEquals(all[i - 1], all[i], "Duplicate ID generated");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep IDs unique when the clock moves backwards.")
+    void generate_ClockMovesBackwards() {
+        long[] clock = {SnowflakeShortCodeGenerator.EPOCH_SECOND + 100};
+        SnowflakeShortCodeGenerator generator = new SnowflakeShortCodeGenerator(codec, 1, () -> clock[0]);
+
+        long before = generator.nextId();
+        clock[0] -= 50;
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    @DisplayName("Should encode IDs as fixed-length codes that decode back to the ID.")
+    void generateShortCode_Reversible() {
+        SnowflakeShortCodeGenerator generator = new SnowflakeShortCodeGenerator(codec, 1023, () -> System.currentTimeMillis() / 1000);
+
+        String shortCode = generator.generateShortCode();
+
+        assertEquals(generator.getCodeLength(), shortCode.length());
+        assertTrue(codec.decode(shortCode) > 0);
+    }
+
+    @Test
+    @DisplayName("Should refuse an alphabet whose codes would exceed the maximum short code length.")
+    void create_CodesTooLong() {
+        ShortCodeCodec binary = new ShortCodeCodec("01", 6, 0);
+
+        assertThrows(IllegalStateException.class,
+            () -> new SnowflakeShortCodeGenerator(binary, 1, () -> System.currentTimeMillis() / 1000));
+    }
+
+    @Test
+    @DisplayName("Should fail to generate while no node ID is leased.")
+    void generate_NoLease() {
+        SnowflakeShortCodeGenerator generator = new SnowflakeShortCodeGenerator(codec, () -> {
+            throw new IllegalStateException("No current lease");
+        }, () -> System.currentTimeMillis() / 1000);
+
+        assertThrows(IllegalStateException.class, generator::generateShortCode);
+    }
+}
@@ -0,0 +1,156 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.url.repository.RedirectTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Redirect Cache Tests")
+class RedirectCacheTest {
+    private static final int CALLERS = 64;
+    private static final RedirectTarget TARGET = new RedirectTarget("https://www.example.com", null, null, null);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private static RedirectCache cache(boolean enabled, long ttlSeconds, double earlyRefreshBeta) {
+        return new RedirectCache(enabled, 1_000, ttlSeconds, earlyRefreshBeta, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Resolves the code from {@value CALLERS} threads at once. The load only returns once every caller has
+     * arrived, so all of them overlap with it.
+     */
+    private List<RedirectTarget> burst(RedirectCache cache, String shortCode, RedirectTarget result) throws Exception {
+        CountDownLatch arrived = new CountDownLatch(CALLERS);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<RedirectTarget>> futures = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> {
+                    arrived.countDown();
+                    return cache.get(shortCode, code -> {
+                        loads.incrementAndGet();
+                        try {
+                            arrived.await(5, TimeUnit.SECONDS);
+                            Thread.sleep(50);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return result;
+                    });
+                }));
+            }
+            List<RedirectTarget> results = new ArrayList<>();
+            for (Future<RedirectTarget> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load a cold code once for a burst of concurrent redirects and serve later ones from the cache.")
+    void coalescesConcurrentMisses() throws Exception {
+        RedirectCache cache = cache(true, 3600, 0);
+
+        List<RedirectTarget> results = burst(cache, "viral", TARGET);
+
+        assertEquals(1, loads.get());
+        assertTrue(results.stream().allMatch(TARGET::equals));
+
+        burst(cache, "viral", TARGET);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should load an unknown code once per burst, sharing the null result.")
+    void coalescesConcurrentMissesOfUnknownCodes() throws Exception {
+        RedirectCache cache = cache(true, 3600, 0);
+
+        List<RedirectTarget> results = burst(cache, "unknown", null);
+
+        assertEquals(1, loads.get());
+        assertTrue(results.stream().allMatch(result -> result == null));
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent loads when the cache is disabled.")
+    void coalescesWithCacheDisabled() throws Exception {
+        RedirectCache cache = cache(false, 3600, 0);
+
+        burst(cache, "viral", TARGET);
+        assertEquals(1, loads.get());
+
+        burst(cache, "viral", TARGET);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should reload a hot entry before its TTL runs out when early refresh is likely.")
+    void refreshesEarly() {
+        RedirectCache cache = cache(true, 1, 1e12);
+        cache.get("hot", code -> {
+            loads.incrementAndGet();
+            return TARGET;
+        });
+
+        RedirectTarget refreshed = cache.get("hot", code -> {
+            loads.incrementAndGet();
+            return TARGET;
+        });
+
+        assertEquals(TARGET, refreshed);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not cache a load that raced with an invalidation of the same code.")
+    void skipsLoadsRacingInvalidation() {
+        RedirectCache cache = cache(true, 3600, 0);
+        cache.get("deleted", code -> {
+            loads.incrementAndGet();
+            cache.invalidate(code);
+            return TARGET;
+        });
+
+        cache.get("deleted", code -> {
+            loads.incrementAndGet();
+            return TARGET;
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Should not preload an entry whose code was invalidated after the stamp was taken.")
+    void skipsPreloadsRacingInvalidation() {
+        RedirectCache cache = cache(true, 3600, 0);
+        RedirectCache.InvalidationStamp stamp = cache.stamp();
+        cache.invalidate("deleted");
+
+        assertFalse(cache.preload("deleted", TARGET, stamp));
+        assertTrue(cache.preload("live", TARGET, stamp));
+
+        cache.invalidateAll();
+        assertFalse(cache.preload("other", TARGET, stamp));
+
+        cache.get("deleted", code -> {
+            loads.incrementAndGet();
+            return TARGET;
+        });
+        assertEquals(1, loads.get());
+    }
+}
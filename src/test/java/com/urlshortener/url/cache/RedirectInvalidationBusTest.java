@@ -0,0 +1,73 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.events.ShortenedUrlCreatedEvent;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.repository.RedirectTarget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Redirect Invalidation Bus Tests")
+class RedirectInvalidationBusTest {
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<String> notifications = new ArrayList<>();
+
+    private RedirectInvalidationBus bus() {
+        DataSourceProperties dataSourceProperties = new DataSourceProperties();
+        dataSourceProperties.setUrl("jdbc:postgresql://localhost/shortener");
+        return new RedirectInvalidationBus(jdbcTemplate, dataSourceProperties, new BackgroundThreads(false),
+                mock(RedirectCache.class), mock(MissingShortCodeCache.class), mock(ShortCodeIndex.class),
+                new SimpleMeterRegistry(), true, "shortener_invalidation", 50, 1000, 2000);
+    }
+
+    @Test
+    @DisplayName("Should put back codes whose notification failed and send them on the next publish.")
+    void requeuesUnsentCodes() {
+        RedirectInvalidationBus bus = bus();
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("connection lost"))
+                .thenAnswer(invocation -> {
+                    notifications.add(invocation.getArgument(3));
+                    return "";
+                });
+        bus.onDeleted(new ShortenedUrlDeletedEvent("abc123"));
+
+        assertThrows(DataAccessResourceFailureException.class, bus::publish);
+
+        assertEquals(1, bus.publish());
+        assertTrue(notifications.get(0).endsWith("\nDabc123"));
+        assertEquals(0, bus.publish());
+    }
+
+    @Test
+    @DisplayName("Should keep a change made while a failed notification was in flight instead of the older one.")
+    void keepsNewerChange() {
+        RedirectInvalidationBus bus = bus();
+        bus.onDeleted(new ShortenedUrlDeletedEvent("abc123"));
+        when(jdbcTemplate.queryForObject(anyString(), eq(String.class), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    bus.onCreated(new ShortenedUrlCreatedEvent("abc123", new RedirectTarget("https://www.example.com", null, null, null)));
+                    throw new DataAccessResourceFailureException("connection lost");
+                })
+                .thenAnswer(invocation -> {
+                    notifications.add(invocation.getArgument(3));
+                    return "";
+                });
+
+        assertThrows(DataAccessResourceFailureException.class, bus::publish);
+
+        assertEquals(1, bus.publish());
+        assertTrue(notifications.get(0).endsWith("\nCabc123"));
+    }
+}
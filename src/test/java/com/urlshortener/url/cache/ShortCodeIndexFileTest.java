@@ -0,0 +1,70 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.common.enums.UrlEnums;
+import com.urlshortener.url.repository.RedirectTarget;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Short Code Index File Tests")
+class ShortCodeIndexFileTest {
+    @TempDir
+    Path directory;
+
+    private final UUID databaseId = UUID.randomUUID();
+
+    private static RedirectTarget redirect(int i) {
+        return new RedirectTarget("https://www.example.com/page/" + i,
+                i % 3 == 0 ? LocalDateTime.of(2030, 1, 1, 12, 0, 0, i) : null,
+                i % 2 == 0 ? new UUID(i, -i) : null,
+                UrlEnums.RedirectPolicy.values()[i % UrlEnums.RedirectPolicy.values().length]);
+    }
+
+    @Test
+    @DisplayName("Should reopen a cleanly closed index with its codes, removals and generation, across rehashes and chunks.")
+    void reopensCleanIndex() throws Exception {
+        ShortCodeIndexFile file = ShortCodeIndexFile.create(directory, 0, 4096, databaseId, 7L);
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(file.put("c" + i, redirect(i)));
+        }
+        for (int i = 0; i < 5_000; i += 5) {
+            assertTrue(file.remove("c" + i));
+        }
+        assertTrue(file.put("c1", redirect(-1)));
+        file.setGeneration(42L);
+        file.close();
+
+        ShortCodeIndexFile reopened = ShortCodeIndexFile.open(directory);
+
+        assertNotNull(reopened);
+        assertEquals(databaseId, reopened.databaseId());
+        assertEquals(42L, reopened.generation());
+        assertEquals(4_000, reopened.size());
+        assertEquals(redirect(-1), reopened.get("c1"));
+        for (int i = 2; i < 5_000; i++) {
+            assertEquals(i % 5 == 0 ? null : redirect(i), reopened.get("c" + i), "c" + i);
+        }
+        assertNull(reopened.get("unknown"));
+        assertTrue(reopened.deadBytes() > 0);
+    }
+
+    @Test
+    @DisplayName("Should refuse an index that was not closed, so a crash never leaves a stale snapshot behind.")
+    void refusesDirtyIndex() throws Exception {
+        ShortCodeIndexFile file = ShortCodeIndexFile.create(directory, 0, 4096, databaseId, 0L);
+        file.put("abc123", redirect(1));
+        file.close();
+
+        ShortCodeIndexFile reopened = ShortCodeIndexFile.open(directory);
+        assertNotNull(reopened);
+        reopened.remove("abc123");
+
+        assertNull(ShortCodeIndexFile.open(directory));
+    }
+}
@@ -0,0 +1,86 @@
+package com.urlshortener.url.cache;
+
+import com.urlshortener.config.util.BackgroundThreads;
+import com.urlshortener.url.models.ShortUrlDeletion;
+import com.urlshortener.url.models.ShortenerMetadata;
+import com.urlshortener.url.repository.RedirectTarget;
+import com.urlshortener.url.repository.ShortUrlDeletionRepository;
+import com.urlshortener.url.repository.ShortenerMetadataRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Short Code Index Tests")
+class ShortCodeIndexTest {
+    private static final RedirectTarget TARGET = new RedirectTarget("https://www.example.com", null, null, null);
+
+    @TempDir
+    Path directory;
+
+    private final ShortUrlDeletionRepository shortUrlDeletionRepository = mock(ShortUrlDeletionRepository.class);
+    private final ShortenerMetadataRepository shortenerMetadataRepository = mock(ShortenerMetadataRepository.class);
+
+    private ShortCodeIndex index;
+
+    @BeforeEach
+    void open() {
+        when(shortenerMetadataRepository.findById(ShortCodeIndex.DATABASE_ID))
+                .thenReturn(Optional.of(new ShortenerMetadata(ShortCodeIndex.DATABASE_ID, UUID.randomUUID().toString())));
+        index = new ShortCodeIndex(shortUrlDeletionRepository, shortenerMetadataRepository, new BackgroundThreads(false),
+                new SimpleMeterRegistry(), true, directory.toString(), 0, 4096, 3600);
+        index.open();
+    }
+
+    @AfterEach
+    void close() {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Should index a code read from the database when nothing removed it meanwhile.")
+    void putWithCurrentStamp() {
+        long stamp = index.stamp("abc123");
+
+        index.put("abc123", TARGET, stamp);
+
+        assertEquals(TARGET, index.get("abc123"));
+    }
+
+    @Test
+    @DisplayName("Should not index a code read before it was deleted on this node.")
+    void putAfterRemove() {
+        index.put("abc123", TARGET);
+        long stamp = index.stamp("abc123");
+
+        index.remove("abc123");
+        index.put("abc123", TARGET, stamp);
+
+        assertNull(index.get("abc123"));
+    }
+
+    @Test
+    @DisplayName("Should not index a code read before another node's deletion was applied from the log.")
+    void putAfterCatchUp() {
+        long stamp = index.stamp("abc123");
+        when(shortUrlDeletionRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any()))
+                .thenReturn(List.of(new ShortUrlDeletion(1L, "abc123", LocalDateTime.now())));
+
+        assertEquals(1, index.catchUp());
+        index.put("abc123", TARGET, stamp);
+
+        assertNull(index.get("abc123"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.urlshortener.url.clicks;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Click Journal Tests")
+class ClickJournalTest {
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private ClickJournal journal(int segmentBytes) {
+        return new ClickJournal(jdbcTemplate, true, directory.toString(), segmentBytes);
+    }
+
+    @Test
+    @DisplayName("Should replay clicks from segments left behind, across segment rolls and threads.")
+    void recoversUnappliedSegments() throws Exception {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of());
+        ClickJournal.Segments segments = journal(ClickJournal.RECORD_SIZE * 100).open();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    segments.append(i % 2 == 0 ? "abc123" : "\u00ff-\u00e9");
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        ClickJournal.Recovery recovery = journal(ClickJournal.RECORD_SIZE * 100).recover();
+
+        assertEquals(Map.of("abc123", 2_000L, "\u00ff-\u00e9", 2_000L), recovery.counts());
+        assertEquals(segments.ids().size(), recovery.segmentIds().size());
+        assertTrue(recovery.segmentIds().size() >= 40);
+    }
+
+    @Test
+    @DisplayName("Should delete segments that were already applied instead of replaying them.")
+    void skipsAppliedSegments() throws Exception {
+        ClickJournal.Segments segments = journal(4096).open();
+        segments.append("abc123");
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(1L));
+
+        ClickJournal.Recovery recovery = journal(4096).recover();
+
+        assertTrue(recovery.counts().isEmpty());
+        assertTrue(recovery.segmentIds().isEmpty());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(), files.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep writing one segment across generations and replay only the unapplied ones.")
+    void sharesSegmentsAcrossGenerations() throws Exception {
+        ClickJournal journal = journal(4096);
+        ClickJournal.Segments first = journal.open();
+        first.append("abc123");
+        ClickJournal.Segments second = journal.open();
+        second.append("abc123");
+        second.append("def456");
+
+        journal.markApplied(first);
+        journal.discard(first);
+
+        assertEquals(first.ids(), second.ids());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+        verify(jdbcTemplate).update(startsWith("UPDATE click_journal_segments"), eq(1L), any(), eq(first.ids().get(0)));
+
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(1L));
+        ClickJournal.Recovery recovery = journal(4096).recover();
+
+        assertEquals(Map.of("abc123", 1L, "def456", 1L), recovery.counts());
+        assertEquals(first.ids(), recovery.segmentIds());
+    }
+
+    @Test
+    @DisplayName("Should delete a full segment once the last generation that reached it is applied, keeping the active one.")
+    void discardsFullSegments() throws Exception {
+        ClickJournal journal = journal(ClickJournal.RECORD_SIZE * 2);
+        ClickJournal.Segments first = journal.open();
+        first.append("abc123");
+        first.append("abc123");
+        ClickJournal.Segments second = journal.open();
+        second.append("def456");
+
+        journal.discard(first);
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+
+        journal.discard(second);
+
+        try (var files = Files.list(directory)) {
+            List<Path> left = files.toList();
+            assertEquals(1, left.size());
+            assertNotEquals(directory.resolve(first.ids().get(0) + ".clicks"), left.get(0));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.urlshortener.url.expiry;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Timing Wheel Tests")
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("Should expire every item exactly at its tick, across cascades of all levels.")
+    void expiresAtTick() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(4, 3, 7);
+        Random random = new Random(42);
+        Map<Integer, Long> ticks = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            long tick = 8 + random.nextInt(56);
+            assertTrue(wheel.add(i, tick));
+            ticks.put(i, tick);
+        }
+
+        for (long tick = 8; tick < 64; tick++) {
+            long now = tick;
+            wheel.advance(tick, item -> assertEquals(now, (long) ticks.remove(item)));
+        }
+
+        assertTrue(ticks.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should expire items that are already due on the next advance and reject items beyond the horizon.")
+    void dueAndBeyondHorizon() {
+        TimingWheel<String> wheel = new TimingWheel<>(8, 2, 100);
+
+        assertTrue(wheel.add("past", 90));
+        assertTrue(wheel.add("last", 100 + wheel.horizonTicks() - 1));
+        assertFalse(wheel.add("beyond", 100 + wheel.horizonTicks()));
+        List<String> expired = new ArrayList<>();
+        wheel.advance(100, expired::add);
+
+        assertEquals(List.of("past"), expired);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should expire everything that came due when advancing over many ticks at once.")
+    void advancesOverGaps() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(16, 3, 0);
+        for (int i = 1; i <= 4_000; i++) {
+            wheel.add(i, i);
+        }
+        List<Integer> expired = new ArrayList<>();
+
+        wheel.advance(2_500, expired::add);
+
+        assertEquals(2_500, expired.size());
+        assertEquals(1_500, wheel.size());
+    }
+}
@@ -0,0 +1,111 @@
+package com.urlshortener.url.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a real PostgreSQL, since partitioning is not available on H2. Set {@code SHORTENER_TEST_POSTGRES_URL}
+ * (and {@code SHORTENER_TEST_POSTGRES_USER} / {@code SHORTENER_TEST_POSTGRES_PASSWORD}) to enable it; the tables are
+ * created in their own schema, {@value SCHEMA}, which is dropped afterwards.
+ */
+@DisplayName("Short URL Partitions Tests")
+@EnabledIfEnvironmentVariable(named = "SHORTENER_TEST_POSTGRES_URL", matches = ".+")
+class ShortUrlPartitionsTest {
+    private static final String SCHEMA = "shortener_partitions_test";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createSchema() {
+        dataSource = new SingleConnectionDataSource(System.getenv("SHORTENER_TEST_POSTGRES_URL"),
+                System.getenv("SHORTENER_TEST_POSTGRES_USER"), System.getenv("SHORTENER_TEST_POSTGRES_PASSWORD"), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + SCHEMA);
+        jdbcTemplate.execute("SET search_path TO " + SCHEMA);
+        // The parts of the schema Hibernate creates that the conversion relies on
+        jdbcTemplate.execute("CREATE TABLE users (id uuid PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE short_urls (id uuid PRIMARY KEY, short_code varchar(16) NOT NULL UNIQUE, "
+                + "original_url varchar(2048) NOT NULL, url_hash bigint NOT NULL, expires_at timestamp(6), clicks bigint, "
+                + "user_id uuid REFERENCES users (id), redirect_policy varchar(255), created_at timestamp(6), updated_at timestamp(6))");
+    }
+
+    @AfterEach
+    void dropSchema() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + SCHEMA + " CASCADE");
+        dataSource.destroy();
+    }
+
+    private ShortUrlPartitions partitions(int daysAhead) {
+        DataSourceProperties properties = new DataSourceProperties();
+        properties.setUrl(System.getenv("SHORTENER_TEST_POSTGRES_URL"));
+        return new ShortUrlPartitions(jdbcTemplate, new DataSourceTransactionManager(dataSource), properties, true, daysAhead);
+    }
+
+    private void insert(String shortCode, LocalDateTime expiresAt) {
+        jdbcTemplate.update("INSERT INTO short_urls (id, short_code, original_url, url_hash, expires_at, clicks) VALUES (?, ?, ?, 0, ?, 0)",
+                UUID.randomUUID(), shortCode, "https://www.example.com/" + shortCode, expiresAt);
+    }
+
+    private String partitionOf(String shortCode) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM short_urls WHERE short_code = ?",
+                String.class, shortCode);
+    }
+
+    private static String daily(LocalDate day) {
+        return "short_urls_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    @Test
+    @DisplayName("Should convert the table in place, moving each existing link to the partition of its expiry.")
+    void convertsExistingTable() {
+        LocalDate today = LocalDate.now();
+        insert("permanent", null);
+        insert("expired", LocalDateTime.now().minusDays(3));
+        insert("tomorrow", today.plusDays(1).atTime(12, 0));
+        insert("later", today.plusDays(10).atTime(12, 0));
+
+        partitions(2).start();
+
+        assertEquals("p", jdbcTemplate.queryForObject("SELECT relkind::text FROM pg_class WHERE oid = 'short_urls'::regclass", String.class));
+        assertEquals(4, jdbcTemplate.queryForObject("SELECT count(*) FROM short_urls", Integer.class));
+        assertEquals("short_urls_permanent", partitionOf("permanent"));
+        assertEquals(daily(today), partitionOf("expired"));
+        assertEquals(daily(today.plusDays(1)), partitionOf("tomorrow"));
+        assertEquals("short_urls_overflow", partitionOf("later"));
+    }
+
+    @Test
+    @DisplayName("Should split days off the overflow when more days ahead are needed, and keep working on a converted table.")
+    void maintainExtendsDays() {
+        LocalDate today = LocalDate.now();
+        insert("later", today.plusDays(4).atTime(12, 0));
+        insert("much-later", today.plusDays(40).atTime(12, 0));
+        partitions(2).start();
+        assertEquals("short_urls_overflow", partitionOf("later"));
+
+        ShortUrlPartitions extended = partitions(5);
+        extended.start();
+
+        assertEquals(0, extended.maintain());
+        assertEquals(daily(today.plusDays(4)), partitionOf("later"));
+        assertEquals("short_urls_overflow", partitionOf("much-later"));
+        insert("new-later", today.plusDays(5).atTime(12, 0));
+        assertEquals(daily(today.plusDays(5)), partitionOf("new-later"));
+    }
+}
@@ -7,25 +7,52 @@ import com.urlshortener.auth.model.dto.LoginResponse;
 import com.urlshortener.auth.model.dto.LoginUserDto;
 import com.urlshortener.auth.model.dto.RegisterUserDto;
 import com.urlshortener.auth.repository.UserRepository;
+import com.urlshortener.common.enums.UrlEnums;
 import com.urlshortener.common.enums.UserEnums;
+import com.urlshortener.config.exception.NotFoundException;
+import com.urlshortener.url.cache.RedirectCache;
+import com.urlshortener.url.cache.RedirectCacheWarmer;
+import com.urlshortener.url.clicks.ClickCounter;
+import com.urlshortener.url.dto.BulkShortenResultDto;
+import com.urlshortener.url.dto.ShortUrlResponseDto;
 import com.urlshortener.url.dto.ShortenUrlRequestDto;
+import com.urlshortener.url.events.ShortenedUrlDeletedEvent;
+import com.urlshortener.url.expiry.ExpiredUrlSweeper;
+import com.urlshortener.url.expiry.UrlExpiryWheel;
 import com.urlshortener.url.models.ShortenedUrl;
+import com.urlshortener.url.pool.ShortCodePool;
+import com.urlshortener.url.repository.RedirectTarget;
 import com.urlshortener.url.repository.ShortenedUrlRepository;
 import com.urlshortener.url.service.UrlShortenerService;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MockMvcBuilder;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,6 +63,7 @@ import lombok.Builder;
 @SpringBootTest
 @AutoConfigureMockMvc
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@RecordApplicationEvents
 @DisplayName("Create Short Url Tests")
 class UrlShortenerServiceImplTest {
 
@@ -51,12 +79,63 @@ class UrlShortenerServiceImplTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ClickCounter clickCounter;
+
+    @Autowired
+    private RedirectCache redirectCache;
+
+    @Autowired
+    private RedirectCacheWarmer redirectCacheWarmer;
+
+    @Autowired
+    private UrlExpiryWheel urlExpiryWheel;
+
+    @Autowired
+    private ExpiredUrlSweeper expiredUrlSweeper;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ShortCodePool shortCodePool;
+
     private LoginResponse validLoginResponse = new LoginResponse();
     private User authenticatedUser = new User();
 
+    // Inserted without the entity listener, so the expiry wheel of this node does not delete it in the background
+    private void insertUntracked(String shortCode, LocalDateTime expiresAt) {
+        jdbcTemplate.update("INSERT INTO short_urls (id, short_code, original_url, url_hash, expires_at, clicks) VALUES (?, ?, ?, ?, ?, 0)",
+            UUID.randomUUID(), shortCode, "https://www.example.com", 0L, expiresAt);
+    }
+
+    // The pool is disabled in tests, so its refill job does not run; the pool table holds exactly the given codes
+    private void enablePool(int claimBatchSize, String... shortCodes) {
+        jdbcTemplate.update("DELETE FROM short_code_pool");
+        for (String shortCode : shortCodes) {
+            jdbcTemplate.update("INSERT INTO short_code_pool (short_code) VALUES (?)", shortCode);
+        }
+        ReflectionTestUtils.setField(shortCodePool, "claimBatchSize", claimBatchSize);
+        ReflectionTestUtils.setField(shortCodePool, "enabled", true);
+    }
+
+    private void disablePool() {
+        shortCodePool.returnUnusedCodes();
+        ReflectionTestUtils.setField(shortCodePool, "enabled", false);
+        ReflectionTestUtils.setField(shortCodePool, "claimBatchSize", 100);
+        jdbcTemplate.update("DELETE FROM short_code_pool");
+    }
+
+    private static List<String> deletedShortCodes(ApplicationEvents events) {
+        return events.stream(ShortenedUrlDeletedEvent.class).map(ShortenedUrlDeletedEvent::shortCode).toList();
+    }
+
     @BeforeAll
     void setUp() throws Exception {
         userRepository.deleteAll();
@@ -93,6 +172,56 @@ class UrlShortenerServiceImplTest {
         void setUp() {
             shortUrlRepository.deleteAll();
         }
+
+        @Test
+        @DisplayName("Should take the next pooled code when the claimed one was taken as a custom ID on another node.")
+        void createShortUrl_PooledCodeTaken() {
+            enablePool(1, "pool01", "pool02");
+            // Another node's discard only reaches its own buffer and the pool table, not this claim
+            shortUrlRepository.save(new ShortenedUrl("pool01", "https://www.example.com/custom", null, 0L, null));
+            try {
+                ShortUrlResponseDto created = urlShortenerService.createShortenedUrl("https://www.example.com/pooled", null, null, null);
+
+                assertEquals("pool02", created.getShortCode());
+                assertEquals("https://www.example.com/pooled", shortUrlRepository.findByShortCode("pool02").orElseThrow().getOriginalUrl());
+            } finally {
+                disablePool();
+            }
+        }
+
+        @Test
+        @DisplayName("Should skip codes already in the pool table when returning buffered codes.")
+        void returnUnusedCodes_SkipsPooledCodes() {
+            enablePool(2, "pool03", "pool04");
+            try {
+                String handedOut = shortCodePool.nextShortCode();
+                String buffered = handedOut.equals("pool03") ? "pool04" : "pool03";
+                // Pooled again meanwhile, as a refill on another node may do
+                jdbcTemplate.update("INSERT INTO short_code_pool (short_code) VALUES (?)", buffered);
+
+                shortCodePool.returnUnusedCodes();
+
+                assertEquals(List.of(buffered), jdbcTemplate.queryForList("SELECT short_code FROM short_code_pool", String.class));
+            } finally {
+                disablePool();
+            }
+        }
+
+        @Test
+        @DisplayName("Should keep claimed codes out of the pool table when the claiming transaction rolls back.")
+        void nextShortCode_ClaimSurvivesRollback() {
+            enablePool(2, "pool05", "pool06");
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    shortCodePool.nextShortCode();
+                    status.setRollbackOnly();
+                });
+
+                assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM short_code_pool", Integer.class));
+            } finally {
+                disablePool();
+            }
+        }
         @Test
         @DisplayName("Should successfully create short url without a token.")
         void createShortUrl_Success() throws Exception {
@@ -266,6 +395,167 @@ class UrlShortenerServiceImplTest {
                 .andExpect(header().string("Location", originalUrl));
         }
 
+        @Test
+        @DisplayName("Should count every redirect once clicks are flushed, with a token.")
+        void getOriginalUrl_CountsClicks() throws Exception {
+            String shortCode = "clicks";
+            shortUrlRepository.save(new ShortenedUrl(shortCode, "https://www.example.com", null, 0L, authenticatedUser));
+
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(get("/mixed/url/{shortCode}", shortCode)
+                        .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                    .andExpect(status().isFound());
+            }
+            clickCounter.flush();
+
+            assertEquals(3L, shortUrlRepository.findByShortCode(shortCode).orElseThrow().getClicks());
+        }
+
+        @Test
+        @DisplayName("Should let clients cache a CACHEABLE redirect until the link expires and revalidate it with its ETag, with a token.")
+        void getOriginalUrl_Cacheable() throws Exception {
+            ShortenUrlRequestDto testRequest = ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/cached")
+                .customId("cache1").ttl(600L).redirectPolicy(UrlEnums.RedirectPolicy.CACHEABLE).build();
+            mockMvc.perform(post("/mixed/url/shorten")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.redirectPolicy").value("CACHEABLE"));
+
+            MvcResult result = mockMvc.perform(get("/mixed/url/{shortCode}", "cache1")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://www.example.com/cached"))
+                .andExpect(header().string("Cache-Control", Matchers.matchesPattern("private, max-age=(59\\d|600)")))
+                .andExpect(header().string("Vary", "Authorization"))
+                .andReturn();
+            String etag = result.getResponse().getHeader("ETag");
+            assertNotNull(etag);
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", "cache1")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken())
+                    .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().doesNotExist("Location"));
+        }
+
+        @Test
+        @DisplayName("Should answer a PERMANENT link with a long-lived 301, with a token.")
+        void getOriginalUrl_Permanent() throws Exception {
+            ShortenUrlRequestDto testRequest = ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/moved")
+                .customId("perm1").redirectPolicy(UrlEnums.RedirectPolicy.PERMANENT).build();
+            mockMvc.perform(post("/mixed/url/shorten")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", "perm1")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                .andExpect(status().isMovedPermanently())
+                .andExpect(header().string("Location", "https://www.example.com/moved"))
+                .andExpect(header().string("Cache-Control", "private, max-age=31536000, immutable"));
+        }
+
+        @Test
+        @DisplayName("Should return 400 for a PERMANENT link with a TTL, with a token.")
+        void createShortUrl_PermanentWithTtl() throws Exception {
+            ShortenUrlRequestDto testRequest = ShortenUrlRequestDto.builder().originalUrl("https://www.example.com")
+                .ttl(600L).redirectPolicy(UrlEnums.RedirectPolicy.PERMANENT).build();
+            mockMvc.perform(post("/mixed/url/shorten")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isBadRequest());
+        }
+
+        @Test
+        @DisplayName("Should preload the most clicked live links into the redirect cache, across keyset pages.")
+        void warmUp_PreloadsMostClicked() {
+            List<ShortenedUrl> links = new ArrayList<>();
+            for (int i = 0; i < 2_500; i++) {
+                links.add(new ShortenedUrl("hot" + i, "https://www.example.com/" + i, null, (long) i % 7, null));
+            }
+            shortUrlRepository.saveAll(links);
+            shortUrlRepository.save(new ShortenedUrl("expired", "https://www.example.com", LocalDateTime.now().minusMinutes(1), 1_000L, null));
+            redirectCache.invalidateAll();
+
+            assertEquals(2_500, redirectCacheWarmer.warmUp());
+            assertEquals(0, redirectCacheWarmer.warmUp());
+        }
+
+        @Test
+        @DisplayName("Should delete links from the expiry wheel once they expire, keeping live ones.")
+        void expire_DeletesExpiredLinks() {
+            shortUrlRepository.save(new ShortenedUrl("gone1", "https://www.example.com", LocalDateTime.now().minusSeconds(1), 0L, null));
+            shortUrlRepository.save(new ShortenedUrl("live1", "https://www.example.com", LocalDateTime.now().plusMinutes(5), 0L, null));
+
+            urlExpiryWheel.expire();
+
+            assertFalse(shortUrlRepository.findByShortCode("gone1").isPresent());
+            assertTrue(shortUrlRepository.findByShortCode("live1").isPresent());
+        }
+
+        @Test
+        @DisplayName("Should publish a delete event for each expired link the expiry wheel deletes, and none for live ones.")
+        void expire_PublishesDeletedEvents(@Autowired ApplicationEvents events) {
+            insertUntracked("wheelgone", LocalDateTime.now().minusSeconds(1));
+            insertUntracked("wheellive", LocalDateTime.now().plusMinutes(5));
+
+            List<String> deleted = new TransactionTemplate(transactionManager).execute(status ->
+                shortUrlRepository.deleteExpiredByShortCodes(List.of("wheelgone", "wheellive"), LocalDateTime.now()));
+
+            assertEquals(List.of("wheelgone"), deleted);
+            assertEquals(List.of("wheelgone"), deletedShortCodes(events));
+            assertTrue(shortUrlRepository.findByShortCode("wheellive").isPresent());
+        }
+
+        @Test
+        @DisplayName("Should create a new link instead of returning an expired one for the same URL, with a token.")
+        void createShortUrl_IgnoresExpiredDuplicate() throws Exception {
+            shortUrlRepository.save(new ShortenedUrl("stale1", "https://www.example.com/stale", LocalDateTime.now().minusMinutes(1), 0L, authenticatedUser));
+            ShortenUrlRequestDto testRequest = ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/stale").build();
+
+            mockMvc.perform(post("/mixed/url/shorten")
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.shortCode").value(Matchers.not("stale1")));
+        }
+
+        @Test
+        @DisplayName("Should sweep a backlog of expired links in chunks, keeping live ones.")
+        void sweep_DeletesExpiredInChunks() {
+            List<ShortenedUrl> links = new ArrayList<>();
+            for (int i = 0; i < 2_500; i++) {
+                links.add(new ShortenedUrl("old" + i, "https://www.example.com/" + i, LocalDateTime.now().minusHours(1), 0L, null));
+            }
+            shortUrlRepository.saveAll(links);
+            shortUrlRepository.save(new ShortenedUrl("live2", "https://www.example.com", LocalDateTime.now().plusMinutes(5), 0L, null));
+
+            expiredUrlSweeper.sweep();
+
+            assertEquals(0, expiredUrlSweeper.sweep());
+            assertFalse(shortUrlRepository.findByShortCode("old0").isPresent());
+            assertFalse(shortUrlRepository.findByShortCode("old2499").isPresent());
+            assertTrue(shortUrlRepository.findByShortCode("live2").isPresent());
+        }
+
+        @Test
+        @DisplayName("Should publish a delete event for each expired link the sweep deletes.")
+        void sweep_PublishesDeletedEvents(@Autowired ApplicationEvents events) {
+            insertUntracked("sweptgone1", LocalDateTime.now().minusMinutes(1));
+            insertUntracked("sweptgone2", LocalDateTime.now().minusMinutes(1));
+            insertUntracked("sweptlive", LocalDateTime.now().plusMinutes(5));
+
+            expiredUrlSweeper.sweep();
+
+            assertTrue(deletedShortCodes(events).containsAll(List.of("sweptgone1", "sweptgone2")));
+            assertFalse(deletedShortCodes(events).contains("sweptlive"));
+        }
+
         @Test
         @DisplayName("Should return 404 when short code does not exist or belongs to a different user, with a token.")
         void getOriginalUrl_NotFound() throws Exception {
@@ -310,5 +600,178 @@ class UrlShortenerServiceImplTest {
             assertFalse(shortUrlRepository.findByShortCode(shortCode).isPresent());
         }
 
+        @Test
+        @DisplayName("Should redirect a custom ID created after it was looked up as missing, without a token.")
+        void getOriginalUrl_MissingThenCreated() throws Exception {
+            String shortCode = "later1";
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", shortCode))
+                .andExpect(status().isNotFound());
+
+            ShortenUrlRequestDto testRequest = ShortenUrlRequestDto.builder().originalUrl(
+                "https://www.example.com").customId(shortCode).build();
+            mockMvc.perform(post("/mixed/url/shorten")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequest)))
+                .andExpect(status().isCreated());
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", shortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://www.example.com"));
+        }
+
+        @Test
+        @DisplayName("Should stop redirecting a cached short url once it is deleted, with a token.")
+        void getOriginalUrl_CachedThenDeleted() throws Exception {
+            String shortCode = "cached";
+            shortUrlRepository.save(new ShortenedUrl(shortCode, "https://www.example.com", null, 0L, authenticatedUser));
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", shortCode)
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                .andExpect(status().isFound());
+
+            mockMvc.perform(delete("/mixed/url/{shortCode}", shortCode)
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                .andExpect(status().isOk());
+
+            mockMvc.perform(get("/mixed/url/{shortCode}", shortCode)
+                    .header("Authorization", "Bearer " + validLoginResponse.getToken()))
+                .andExpect(status().isNotFound());
+        }
+
+        @Test
+        @DisplayName("Should stop serving a link whose redirect was loaded while its delete was being committed.")
+        void getOriginalUrl_LoadedDuringDelete() {
+            String shortCode = "racing";
+            shortUrlRepository.save(new ShortenedUrl(shortCode, "https://www.example.com", null, 0L, null));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    shortUrlRepository.deleteByShortCode(shortCode);
+                    shortUrlRepository.flush();
+                    // A concurrent miss still reads the committed row and caches it
+                    RedirectTarget stale = assertDoesNotThrow(() ->
+                        executor.submit(() -> urlShortenerService.getAnonymousRedirect(shortCode)).get(5, TimeUnit.SECONDS));
+                    assertEquals("https://www.example.com", stale.originalUrl());
+                });
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThrows(NotFoundException.class, () -> urlShortenerService.getAnonymousRedirect(shortCode));
+        }
+
+    }
+
+    @Nested
+    @DisplayName("Bulk shorten urls.")
+    class BulkCreateShortUrlTests {
+
+        @BeforeEach
+        void setUpEach() {
+            shortUrlRepository.deleteAll();
+        }
+
+        @Test
+        @DisplayName("Should report the outcome of every item of a bulk request.")
+        void createShortUrls_PerItemResults() throws Exception {
+            shortUrlRepository.save(new ShortenedUrl("taken", "https://www.example.com/taken", null, 0L, null));
+
+            List<ShortenUrlRequestDto> testRequests = List.of(
+                ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/a").build(),
+                ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/a").build(),
+                ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/b").customId("taken").build(),
+                ShortenUrlRequestDto.builder().originalUrl("not a url").build(),
+                ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/c").customId("bulk1").ttl(60L).build());
+
+            mockMvc.perform(post("/mixed/url/shorten/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(testRequests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("EXISTING"))
+                .andExpect(jsonPath("$[2].status").value("CONFLICT"))
+                .andExpect(jsonPath("$[3].status").value("INVALID"))
+                .andExpect(jsonPath("$[3].error").value("Invalid URL"))
+                .andExpect(jsonPath("$[4].status").value("CREATED"))
+                .andExpect(jsonPath("$[4].shortUrl.shortCode").value("bulk1"));
+
+            assertTrue(shortUrlRepository.findByShortCodeAndUserIsNull("bulk1").isPresent());
+            assertEquals(3, shortUrlRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should report custom IDs taken by a concurrent bulk request per item instead of failing the request.")
+        void createShortUrls_ConcurrentCustomIds() throws Exception {
+            int requests = 4;
+            int items = 20;
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(requests);
+            List<BulkShortenResultDto> results = new ArrayList<>();
+            try {
+                List<Future<List<BulkShortenResultDto>>> futures = new ArrayList<>();
+                for (int r = 0; r < requests; r++) {
+                    List<ShortenUrlRequestDto> testRequests = new ArrayList<>();
+                    for (int i = 0; i < items; i++) {
+                        testRequests.add(ShortenUrlRequestDto.builder().originalUrl("https://www.example.com/" + i).customId("race" + i).build());
+                    }
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return urlShortenerService.createShortenedUrls(testRequests);
+                    }));
+                }
+                start.countDown();
+                for (Future<List<BulkShortenResultDto>> future : futures) {
+                    results.addAll(future.get(30, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(items, results.stream().filter(result -> result.getStatus() == BulkShortenResultDto.Status.CREATED).count());
+            assertEquals((requests - 1) * items, results.stream().filter(result -> result.getStatus() == BulkShortenResultDto.Status.CONFLICT).count());
+            assertEquals(items, shortUrlRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should stream progress of a CSV import.")
+        void importShortUrls_Csv() throws Exception {
+            String csv = """
+                originalUrl,customId,ttl
+                https://www.example.com/a,,
+                "https://www.example.com/b?x=1,2",csv1,60
+                https://www.example.com/c,,not-a-number
+                """;
+
+            mockMvc.perform(post("/mixed/url/import")
+                    .contentType("text/csv")
+                    .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("\"done\":true")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("Invalid value 'not-a-number' for field 'ttl'")));
+
+            assertEquals("https://www.example.com/b?x=1,2", shortUrlRepository.findByShortCode("csv1").orElseThrow().getOriginalUrl());
+            assertEquals(2, shortUrlRepository.count());
+        }
+
+        @Test
+        @DisplayName("Should report rejected import rows by line number and keep importing past a row the database rejects.")
+        void importShortUrls_LineNumbersAndViolations() throws Exception {
+            String csv = "originalUrl,customId,ttl\n"
+                + "\n"
+                + "https://www.example.com/a,,\n"
+                + "https://www.example.com/" + "a".repeat(300) + ",,\n"
+                + "https://www.example.com/c,,not-a-number\n";
+
+            mockMvc.perform(post("/mixed/url/import")
+                    .contentType("text/csv")
+                    .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("\"index\":4,\"status\":\"INVALID\"")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("\"index\":5,\"status\":\"INVALID\"")))
+                .andExpect(content().string(org.hamcrest.Matchers.containsString("\"failed\":2,\"errors\":[],\"error\":null,\"done\":true")));
+
+            assertEquals(1, shortUrlRepository.count());
+        }
     }
 }
\ No newline at end of file